@@ -0,0 +1,169 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.math.Vector2;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The read-only part of a simulation step: every zombie and nonZombie picks a target, chooses how to move
+ * and calculates its steering. Nothing is written except each character's own AI state, so once there are
+ * enough characters the work is split across a fork/join pool. Forces, damage and deaths are applied
+ * afterwards on the simulation thread.
+ * Characters off screen and away from the player are put in a lower AITier and only think every few steps,
+ * reusing their last target and steering in between.
+ * #changed:   Added this class
+ */
+class AIPhase {
+
+    // Shared by every level, its worker threads are daemons so they never keep the game running
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+    private final LevelSimulation simulation;
+    private Zombie[] characters = new Zombie[64];
+    private int count;
+    // Tasks are reused every step so a parallel run doesn't allocate
+    private final Split split = new Split();
+    private Batch[] batches = new Batch[0];
+    private int batchCount;
+    private final int[] tierCounts = new int[AITier.values().length];
+    private final Vector2 playerPosition = new Vector2();
+    private final Vector2 position = new Vector2();
+
+    AIPhase(LevelSimulation simulation) {
+        this.simulation = simulation;
+    }
+
+    /**
+     * Run the AI for every character
+     * @param entities the entities of the zombies and nonZombies
+     */
+    void run(ImmutableArray<Entity> entities) {
+        int previousCount = count;
+        count = 0;
+        add(entities);
+        // Don't keep removed characters alive
+        for (int i = count; i < previousCount; i++)
+            characters[i] = null;
+        assignTiers();
+
+        if (count < Constant.PARALLELAITHRESHOLD) {
+            think(0, count);
+        } else {
+            batchCount = (count + Constant.AIBATCHSIZE - 1) / Constant.AIBATCHSIZE;
+            if (batchCount > batches.length) {
+                Batch[] larger = new Batch[batchCount];
+                System.arraycopy(batches, 0, larger, 0, batches.length);
+                for (int i = batches.length; i < batchCount; i++)
+                    larger[i] = new Batch(i);
+                batches = larger;
+            }
+            split.reinitialize();
+            pool.invoke(split);
+        }
+    }
+
+    private void add(ImmutableArray<Entity> entities) {
+        if (count + entities.size() > characters.length) {
+            Zombie[] larger = new Zombie[Math.max(characters.length * 2, count + entities.size())];
+            System.arraycopy(characters, 0, larger, 0, count);
+            characters = larger;
+        }
+        for (int i = 0; i < entities.size(); i++)
+            characters[count++] = CharacterComponent.get(entities.get(i));
+    }
+
+    /**
+     * Put every character in an AITier from its distance to the player, anything in view is always NEAR
+     */
+    private void assignTiers() {
+        for (int i = 0; i < tierCounts.length; i++)
+            tierCounts[i] = 0;
+
+        LevelConfig config = simulation.getConfig();
+        float mid2 = config.getAIMidDistance() * config.getAIMidDistance();
+        float far2 = config.getAIFarDistance() * config.getAIFarDistance();
+        simulation.getPlayer().getSnapshotPosition(playerPosition);
+
+        for (int i = 0; i < count; i++) {
+            Zombie zombie = characters[i];
+            zombie.getSnapshotPosition(position);
+            float x = position.x;
+            float y = position.y;
+            float distance2 = (x - playerPosition.x) * (x - playerPosition.x) + (y - playerPosition.y) * (y - playerPosition.y);
+
+            if (distance2 < mid2 || simulation.isInView(x, y))
+                zombie.aiTier = AITier.NEAR;
+            else if (distance2 < far2)
+                zombie.aiTier = AITier.MID;
+            else
+                zombie.aiTier = AITier.FAR;
+            // Anything coming into view or near the player stops being dormant straight away
+            if (zombie.aiTier == AITier.NEAR)
+                zombie.wake();
+            tierCounts[zombie.aiTier.ordinal()]++;
+        }
+    }
+
+    /**
+     * @param tier an AI tier
+     * @return how many characters were in the tier on the last step
+     */
+    int getTierCount(AITier tier) {
+        return tierCounts[tier.ordinal()];
+    }
+
+    private void think(int from, int to) {
+        for (int i = from; i < to; i++) {
+            Zombie zombie = characters[i];
+            if (zombie.stepsSinceThink < simulation.getAIInterval(zombie.aiTier) - 1 && zombie.reuseThought()) {
+                zombie.stepsSinceThink++;
+                continue;
+            }
+            zombie.stepsSinceThink = 0;
+            zombie.closestAttackable = simulation.getClosestAttackable(zombie.isZombie, zombie);
+            zombie.think(simulation.getPlayerFlowField());
+        }
+    }
+
+    /**
+     * Forks one Batch per AIBATCHSIZE characters and waits for them all
+     */
+    private class Split extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (int i = 1; i < batchCount; i++) {
+                batches[i].reinitialize();
+                batches[i].fork();
+            }
+            batches[0].think();
+            for (int i = 1; i < batchCount; i++)
+                batches[i].join();
+        }
+    }
+
+    /**
+     * Runs the AI for one fixed slice of the characters
+     */
+    private class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int index;
+
+        Batch(int index) {
+            this.index = index;
+        }
+
+        void think() {
+            int from = index * Constant.AIBATCHSIZE;
+            AIPhase.this.think(from, Math.min(from + Constant.AIBATCHSIZE, count));
+        }
+
+        @Override
+        protected void compute() {
+            think();
+        }
+    }
+}
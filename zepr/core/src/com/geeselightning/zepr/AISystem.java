@@ -0,0 +1,38 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.utils.ImmutableArray;
+
+/**
+ * Runs AIPhase over every character, choosing targets and calculating steering before anything moves.
+ * #changed:   Added this class
+ */
+class AISystem extends EntitySystem {
+
+    private final AIPhase aiPhase;
+    private ImmutableArray<Entity> characters;
+    private final StepProfile profile;
+
+    AISystem(LevelSimulation simulation, int priority) {
+        super(priority);
+        aiPhase = new AIPhase(simulation);
+        profile = simulation.getProfile();
+    }
+
+    @Override
+    public void addedToEngine(Engine engine) {
+        characters = engine.getEntitiesFor(LevelSimulation.CHARACTERS);
+    }
+
+    AIPhase getAIPhase() {
+        return aiPhase;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        aiPhase.run(characters);
+        profile.mark(StepProfile.Phase.AI);
+    }
+}
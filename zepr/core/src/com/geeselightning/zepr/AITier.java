@@ -0,0 +1,19 @@
+package com.geeselightning.zepr;
+
+/**
+ * How often a zombie or nonZombie runs its AI. Characters on screen or close to the player think every
+ * step, those further away think less often and keep their last target and steering in between.
+ * #changed:   Added this class
+ */
+public enum AITier {
+    NEAR(1),
+    MID(Constant.AIMIDINTERVAL),
+    FAR(Constant.AIFARINTERVAL);
+
+    // Steps between each run of the AI
+    final int interval;
+
+    AITier(int interval) {
+        this.interval = interval;
+    }
+}
@@ -4,9 +4,9 @@ import com.badlogic.gdx.ai.steer.Steerable;
 import com.badlogic.gdx.ai.steer.SteeringAcceleration;
 import com.badlogic.gdx.ai.steer.SteeringBehavior;
 import com.badlogic.gdx.ai.utils.Location;
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
@@ -38,10 +38,30 @@ public class Character extends Sprite implements Steerable<Vector2> {
     float maxAngularAcceleration = 2f;
     private float zeroThreshold = 0.01f;
     SteeringBehavior<Vector2> steeringBehavior;
-    private static final SteeringAcceleration<Vector2> steeringOutput = new SteeringAcceleration<>(new Vector2());
+    // Each character has its own output so steering can be calculated for many characters at once
+    final SteeringAcceleration<Vector2> steeringOutput = new SteeringAcceleration<>(new Vector2());
+    // Set once steeringOutput holds this step's steering, so update() applies it instead of recalculating
+    private boolean steeringCalculated = false;
+    // Set by the AI when there is nothing worth moving for, steering stops and the body is left to sleep
+    boolean dormant = false;
     float boundingRadius = 100f;
     private boolean tagged = true;
     private boolean independentFacing = false;
+    // Sprite position at the end of the previous physics step, used to interpolate rendering
+    private float previousX, previousY;
+    // Copy of the Box2D body state taken after each physics step. The Steerable getters return these
+    // so the steering behaviours can be run on several threads without calling into Box2D
+    private final Vector2 snapshotPosition = new Vector2();
+    private final Vector2 snapshotVelocity = new Vector2();
+    private float snapshotOrientation;
+    // Reused by getPhysicsPosition() so Box2D's own position vector is never modified
+    private final Vector2 physicsPosition = new Vector2();
+    // Images held in Sprites for as long as the character shows them, released by setImages() and dispose()
+    private String normalName;
+    private String attackName;
+    protected TextureRegion normalRegion;
+    protected TextureRegion attackRegion;
+    private TextureRegion shownRegion; // the region last set on the sprite
 
     /**
      * Constructor for the character
@@ -99,10 +119,8 @@ public class Character extends Sprite implements Steerable<Vector2> {
     public boolean collidesWith(Character character) {
         // Circles work better than character.getBoundingRectangle()
         double diameter = 10;
-        Vector2 center1 = getCenter();
-        Vector2 center2 = character.getCenter();
-        double distanceBetweenCenters = (Math.pow(center1.x - center2.x, 2)
-                + Math.pow(center1.y - center2.y, 2));
+        double distanceBetweenCenters = (Math.pow(getCenterX() - character.getCenterX(), 2)
+                + Math.pow(getCenterY() - character.getCenterY(), 2));
         return (0 <= distanceBetweenCenters && distanceBetweenCenters <= Math.pow(diameter, 2));
     }
 
@@ -113,45 +131,129 @@ public class Character extends Sprite implements Steerable<Vector2> {
      */
     public void setCharacterPosition(Vector2 position) {
         body.setTransform(position.x / Constant.PHYSICSDENSITY, position.y / Constant.PHYSICSDENSITY, 0);
+        snapshot();
+        // Teleports should not be smoothed over
+        savePreviousPosition();
+    }
+
+    /**
+     * Copy the Box2D body state into the snapshot read by the steering behaviours and align the sprite with it.
+     * Must be called after each physics step, before steering is calculated.
+     * #changed:   Added this method
+     */
+    void snapshot() {
+        snapshotPosition.set(body.getPosition());
+        snapshotVelocity.set(body.getLinearVelocity());
+        snapshotOrientation = body.getAngle();
         updatePosition();
     }
 
+    /**
+     * Gets the position in pixels from the snapshot, safe to call from any thread during the AI phase
+     * @param out vector to store the result in
+     * @return out, for chaining
+     * #changed:   Added this method
+     */
+    Vector2 getSnapshotPosition(Vector2 out) {
+        return out.set(snapshotPosition).scl(Constant.PHYSICSDENSITY);
+    }
+
+    /**
+     * Remember the current sprite position as the previous physics state.
+     * Call this before each physics step.
+     * #changed:   Added this method
+     */
+    void savePreviousPosition() {
+        previousX = getX();
+        previousY = getY();
+    }
+
 
     @Override
     public void set(Sprite sprite) {
         super.set(sprite);
+        // The sprite passed is a fresh copy of the image that nothing changes afterwards
+        shownRegion = sprite;
         GenerateBodyFromSprite();
     }
 
+    /**
+     * #changed:   Remembers the region shown, so snapshots can draw the character without the sprite
+     */
+    @Override
+    public void setRegion(TextureRegion region) {
+        super.setRegion(region);
+        shownRegion = region;
+    }
+
+    /**
+     * Copy everything needed to draw the character into a snapshot, including where it was before the last step
+     * @param entry the snapshot entry to fill
+     * #changed:   Added this method, replacing the drawing code that read the character directly
+     */
+    void writeTo(WorldSnapshot.Entry entry) {
+        entry.region = shownRegion;
+        entry.previousX = previousX;
+        entry.previousY = previousY;
+        entry.x = getX();
+        entry.y = getY();
+        entry.width = getWidth();
+        entry.height = getHeight();
+        entry.originX = getOriginX();
+        entry.originY = getOriginY();
+        entry.scaleX = getScaleX();
+        entry.scaleY = getScaleY();
+        entry.rotation = (float) Math.toDegrees(-direction);
+        entry.health = health;
+        entry.maxHealth = maxhealth;
+    }
+
     /**
      * Draw the character to the screen
      * @param batch - the SpriteBatch instance to draw to
-     * #changed:   Added this method, moving draw code from Level to here
+     * #changed:   Added this method, moving draw code from Level to here.
+     *             The health bar is now drawn separately by HealthBars, after every character
      */
     @Override
     public void draw(Batch batch) {
     	setRotation((float) Math.toDegrees(-direction));
         super.draw(batch);
-        // Draw health bar
-        final int fillAmount = health > 0 ? (int)(32 * (float)health/maxhealth) : 0;
-        batch.setColor(Color.BLACK);
-        batch.draw(Level.blank, getX(), getY()+32, 32, 3);
-        batch.setColor(Color.RED);
-        batch.draw(Level.blank, getX() + 1, getY() + 33, fillAmount, 1);
-        batch.setColor(Color.WHITE);
     }
 
     // hitRange has to be passed by the subclass from the canHit method.
+    //#changed:   Works on the centre coordinates directly instead of allocating vectors
     boolean canHitGlobal(Character character, int hitRange) {
-        double directionToCharacter = this.getDirectionTo(character.getCenter());
+        float targetX = character.getCenterX();
+        float targetY = character.getCenterY();
+        double directionToCharacter = this.getDirectionTo(targetX, targetY);
         double angle = abs(directionToCharacter - direction);
-        double distance = this.getCenter().sub(character.getCenter()).len();
+        float xDistance = getCenterX() - targetX;
+        float yDistance = getCenterY() - targetY;
+        double distance = (float) Math.sqrt(xDistance * xDistance + yDistance * yDistance);
 
         return (angle < 0.8 && distance < hitRange);
     }
 
     public Vector2 getCenter() {
-        return new Vector2(getX() + (getHeight() / 2), getY() + (getWidth() / 2));
+        return getCenter(new Vector2());
+    }
+
+    /**
+     * Centre of the character sprite
+     * @param out vector to store the result in
+     * @return out, for chaining
+     * #changed:   Added this method
+     */
+    public Vector2 getCenter(Vector2 out) {
+        return out.set(getCenterX(), getCenterY());
+    }
+
+    float getCenterX() {
+        return getX() + (getHeight() / 2);
+    }
+
+    float getCenterY() {
+        return getY() + (getWidth() / 2);
     }
 
     /**
@@ -162,14 +264,24 @@ public class Character extends Sprite implements Steerable<Vector2> {
      * #changed:   Modified to use getCenter() to reduce code duplication
      */
     public double getDirectionTo(Vector2 coordinate) {
-        Vector2 charCenter = getCenter();
+        return getDirectionTo(coordinate.x, coordinate.y);
+    }
 
+    /**
+     * Finds the direction (in radians) that a point is in relative to the character.
+     *
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @return bearing   double in radians of the bearing from the character to the point
+     * #changed:   Added this method so the direction can be found without allocating vectors
+     */
+    double getDirectionTo(float x, float y) {
         // atan2 uses the signs of both variables the determine the correct quadrant (relative to the character) of the
         // result.
         // Modulus 2pi of the angle must be taken as the angle is negative for the -x quadrants.
         // The angle must first be displaced by 2pi because the Java modulus function can return a -ve value.
 
-        return(Math.atan2((coordinate.x - charCenter.x), (coordinate.y - charCenter.y)) + (2 * Math.PI))
+        return(Math.atan2((x - getCenterX()), (y - getCenterY())) + (2 * Math.PI))
                 % (2 * Math.PI);
     }
 
@@ -181,18 +293,29 @@ public class Character extends Sprite implements Steerable<Vector2> {
      * #changed:   Modified to use getCenter() to reduce code duplication
      */
     public Vector2 getDirNormVector(Vector2 coordinate) {
-        Vector2 charCenter = getCenter();
-        // create vector that is the difference between character and the coordinate, and return it normalised
-        Vector2 diffVector = new Vector2((coordinate.x - charCenter.x), (coordinate.y - charCenter.y));
-        return diffVector.nor();
+        return getDirNormVector(coordinate, new Vector2());
+    }
+
+    /**
+     * Calculates a normalised vector that points towards given coordinate.
+     *
+     * @param coordinate Vector2 representing the position of the object
+     * @param out vector to store the result in, may be coordinate
+     * @return out, normalised to point from this towards the given coordinate
+     * #changed:   Added this method
+     */
+    public Vector2 getDirNormVector(Vector2 coordinate, Vector2 out) {
+        // the difference between character and the coordinate, normalised
+        return out.set(coordinate.x - getCenterX(), coordinate.y - getCenterY()).nor();
     }
 
     /**
      * Gets the position in Box2D physics coordinates
-     * @return the position as Vector2
+     * @return the position as Vector2, reused by the next call
+     * #changed:   No longer scales the Box2D body's own position vector
      */
     Vector2 getPhysicsPosition() {
-        return body.getPosition().scl(Constant.PHYSICSDENSITY);
+        return physicsPosition.set(body.getPosition()).scl(Constant.PHYSICSDENSITY);
     }
 
     /**
@@ -206,31 +329,122 @@ public class Character extends Sprite implements Steerable<Vector2> {
 
     /**
      * This method updates the character properties.
-     * #changed:   Removed most of the code from here due to the transition to using Box2D physics for collisions
+     * #changed:   Removed most of the code from here due to the transition to using Box2D physics for collisions.
+     *             Dormant characters apply no steering and put their body to sleep once it has stopped
      */
     public void update(float delta) {
         // Update x, y position of character.
         updatePosition();
 
-        if (steeringBehavior != null) { // update character based on assigned steering behaviour
-            steeringBehavior.calculateSteering(steeringOutput);
+        if (dormant) {
+            // Sleeping bodies are skipped by Box2D until something collides with them or they are woken
+            if (body.isAwake() && body.getLinearVelocity().isZero(Constant.DORMANTSPEED * Constant.DORMANTSPEED))
+                body.setAwake(false);
+        } else if (steeringBehavior != null) { // update character based on assigned steering behaviour
+            if (!steeringCalculated)
+                steeringBehavior.calculateSteering(steeringOutput);
             applySteering(steeringOutput, delta);
         }
+        steeringCalculated = false;
     }
 
     /**
-     * Decreases health by value of damage
+     * Calculate this step's steering ahead of update(), so it can be done in parallel for many characters.
+     * Only reads the snapshots of this and other characters.
+     * #changed:   Added this method
+     */
+    void calculateSteering() {
+        if (steeringBehavior != null) {
+            steeringBehavior.calculateSteering(steeringOutput);
+            steeringCalculated = true;
+        }
+    }
+
+    /**
+     * Apply the steering left in steeringOutput from the last calculation again this step
+     * #changed:   Added this method
+     */
+    void reuseSteering() {
+        steeringCalculated = steeringBehavior != null;
+    }
+
+    /**
+     * Decreases health by value of damage, waking the character if it is dormant
       */
     public void takeDamage(int damage){
+        wake();
         health -= damage;
     }
 
+    /**
+     * Bring a dormant character back into play, its steering is applied again from the next update
+     * #changed:   Added this method
+     */
+    void wake() {
+        dormant = false;
+    }
+
+    /**
+     * Add the character's state to a state hash
+     * @param hash the hash to add to
+     * #changed:   Added this method
+     */
+    void addTo(StateHash hash) {
+        Vector2 position = body.getPosition();
+        Vector2 velocity = body.getLinearVelocity();
+        hash.add(position.x);
+        hash.add(position.y);
+        hash.add(velocity.x);
+        hash.add(velocity.y);
+        hash.add(body.getAngle());
+        hash.add(health);
+        hash.add(hitRefresh);
+    }
+
+    /**
+     * @return true if Box2D is simulating the character's body this step
+     * #changed:   Added this method
+     */
+    boolean isAwake() {
+        return body.isAwake();
+    }
+
+    /**
+     * Change the images the character shows, acquiring them from Sprites and releasing the previous ones.
+     * The new images are acquired first, so swapping between images that share a texture never unloads it.
+     * Does not change the image currently drawn, the caller sets the region it wants.
+     * @param normal the name of the image shown normally
+     * @param attack the name of the image shown while attacking
+     * #changed:   Added this method
+     */
+    void setImages(String normal, String attack) {
+        if (normal.equals(normalName) && attack.equals(attackName))
+            return;
+        TextureRegion newNormal = Sprites.acquire(normal);
+        TextureRegion newAttack = Sprites.acquire(attack);
+        releaseImages();
+        normalName = normal;
+        attackName = attack;
+        normalRegion = newNormal;
+        attackRegion = newAttack;
+    }
+
+    private void releaseImages() {
+        if (normalName != null) {
+            Sprites.release(normalName);
+            Sprites.release(attackName);
+            normalName = null;
+            attackName = null;
+        }
+    }
+
     /**
      * Dispose of the character, clearing the memory
+     * #changed:   The images are shared with other characters through Sprites, so are released instead of disposed
      */
     public void dispose() {
-    	getTexture().dispose();
     	world.destroyBody(body);
+        releaseImages();
     }
 
     public boolean isIndependentFacing() {
@@ -249,18 +463,18 @@ public class Character extends Sprite implements Steerable<Vector2> {
     protected void applySteering(SteeringAcceleration<Vector2> steering, float delta) {
         boolean anyAccelerations = false;
         // Update position and linear velocity
-        if (!steeringOutput.linear.isZero()) {
-            body.applyForceToCenter(steeringOutput.linear, true);
+        if (!steering.linear.isZero()) {
+            body.applyForceToCenter(steering.linear, true);
             anyAccelerations = true;
         }
         //Update orientation and angular velocity
         if (isIndependentFacing()) {
-            if (steeringOutput.angular != 0) {
-                body.applyTorque(steeringOutput.angular, true);
+            if (steering.angular != 0) {
+                body.applyTorque(steering.angular, true);
                 anyAccelerations = true;
             }
         } else {
-            Vector2 linearVelocity = getLinearVelocity();
+            Vector2 linearVelocity = body.getLinearVelocity();
             if (!linearVelocity.isZero(getZeroLinearSpeedThreshold())) {
                 float newOrientation = vectorToAngle(linearVelocity);
                 body.setAngularVelocity((newOrientation - getAngularVelocity()) * delta);
@@ -287,19 +501,25 @@ public class Character extends Sprite implements Steerable<Vector2> {
         return attackDamage;
     }
 
+    /**
+     * #changed:   Returns the snapshot taken after the last physics step rather than reading the body
+     */
     @Override
     public Vector2 getPosition() {
-        return body.getPosition();
+        return snapshotPosition;
     }
 
+    /**
+     * #changed:   Returns the snapshot taken after the last physics step rather than reading the body
+     */
     @Override
     public float getOrientation() {
-        return body.getAngle();
+        return snapshotOrientation;
     }
 
     @Override
     public void setOrientation(float orientation) {
-        body.setTransform(getPosition(), orientation);
+        body.setTransform(body.getPosition(), orientation);
     }
 
     @Override
@@ -339,9 +559,12 @@ public class Character extends Sprite implements Steerable<Vector2> {
         this.tagged = tagged;
     }
 
+    /**
+     * #changed:   Returns the snapshot taken after the last physics step rather than reading the body
+     */
     @Override
     public Vector2 getLinearVelocity() {
-        return body.getLinearVelocity();
+        return snapshotVelocity;
     }
 
     @Override
@@ -0,0 +1,29 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+
+/**
+ * Links an entity to the zombie or nonZombie it represents. The character keeps its sprite,
+ * Box2D body, health, steering and attack cooldown, which the systems read and update through it.
+ * #changed:   Added this class
+ */
+public class CharacterComponent implements Component {
+
+    public static final ComponentMapper<CharacterComponent> MAPPER = ComponentMapper.getFor(CharacterComponent.class);
+
+    public final Zombie character;
+
+    public CharacterComponent(Zombie character) {
+        this.character = character;
+    }
+
+    /**
+     * @param entity an entity with a CharacterComponent
+     * @return the character the entity represents
+     */
+    public static Zombie get(Entity entity) {
+        return MAPPER.get(entity).character;
+    }
+}
@@ -0,0 +1,39 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.systems.IteratingSystem;
+
+/**
+ * Resolves attacks between the player and each character, and from each character on the target AIPhase chose.
+ * #changed:   Added this class, moving the attack code from the level loops
+ */
+class CombatSystem extends IteratingSystem {
+
+    private final LevelSimulation simulation;
+
+    CombatSystem(LevelSimulation simulation, int priority) {
+        super(LevelSimulation.CHARACTERS, priority);
+        this.simulation = simulation;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        simulation.getProfile().mark(StepProfile.Phase.COMBAT);
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float deltaTime) {
+        Zombie character = CharacterComponent.get(entity);
+        Player player = simulation.getPlayer();
+
+        // Characters will only attack if they are in range, the attack has cooled down, and they are
+        // facing their target.
+        // Player will only attack characters on the other side when player.attack is also true. This is
+        // controlled by the PlayerInput. So the player will only attack when the user clicks.
+        if (player.isAttackReady() && player.isZombie != character.isZombie && player.attack(character, deltaTime))
+            simulation.zombieHit();
+        if (character.closestAttackable != null)
+            character.attackTarget(deltaTime);
+    }
+}
@@ -35,4 +35,38 @@ public final class Constant {
     public static final float INVISIBILITYTIME = 5;
     public final static float WORLDSCALE = 1.f;
     public final static float PHYSICSDENSITY = 100.f;
+    public final static float TIMESTEP = 1 / 60f; // Length of one simulation step in seconds
+    public final static int MAXSTEPSPERFRAME = 5; // Simulation steps a slow frame may catch up on before time is dropped
+    public final static float GRIDCELLSIZE = 64.f; // Cell size in pixels of the spatial index used for target selection
+    public final static int PARALLELAITHRESHOLD = 128; // Characters needed before the AI phase is split across threads
+    public final static int AIBATCHSIZE = 32; // Characters handled by each parallel AI task
+    public final static float AIMIDDISTANCE = 500.f; // Pixels from the player beyond which off screen AI runs less often
+    public final static float AIFARDISTANCE = 1000.f; // Pixels from the player beyond which off screen AI runs least often
+    public final static int AIMIDINTERVAL = 4; // Steps between AI runs for characters in the middle tier
+    public final static int AIFARINTERVAL = 12; // Steps between AI runs for characters in the far tier
+    public final static float DORMANTDISTANCE = 400.f; // Pixels an off screen nonZombie's closest threat must be within to keep it moving
+    public final static float DORMANTSPEED = 0.001f; // Speed a dormant character's body must slow below before it is put to sleep
+    public final static long DEFAULTSEED = 20181; // Seed of simulations that aren't given one, so test and benchmark runs repeat
+    public final static int SPAWNSPERTICK = 4; // Most characters a wave spawns in one tick
+    public final static long SPAWNBUDGET = 0; // Nanoseconds a tick may spend spawning, 0 spawns by count alone so runs repeat exactly
+    public final static int KEYFRAMEINTERVAL = 600; // Steps between the keyframes of a recorded session, 10 seconds
+    public final static int STRESSHORDE = 1000; // Zombies in each wave of the stress test level
+    public final static int STRESSNONZOMBIES = 100; // NonZombies spawned with each wave of the stress test level
+    public final static int STRESSSPAWNSPERTICK = 50; // Most characters the stress test level spawns in one tick
+    public final static float CULLMARGIN = 2 * GRIDCELLSIZE; // Pixels outside the view searched for characters to draw, covers the largest sprite and its health bar
+    public final static int MAPCHUNKTILES = 16; // Width and height in tiles of each chunk of the baked map
+    public final static boolean STATICMAPCACHE = true; // Draw the map from StaticMapCache, F3 switches to the tiled map renderer in game
+    public final static int VELOCITYITERATIONS = 6; // Box2D velocity iterations of each step
+    public final static int POSITIONITERATIONS = 2; // Box2D position iterations of each step
+    public final static int DEGRADEDVELOCITYITERATIONS = 3; // Velocity iterations once QualityGovernor cuts physics
+    public final static int DEGRADEDPOSITIONITERATIONS = 1; // Position iterations once QualityGovernor cuts physics
+    public final static int DEGRADEDAIMULTIPLIER = 2; // How many times longer off screen AI waits between runs once cut
+    public final static int DEGRADEDSPAWNDIVISOR = 2; // How many times fewer characters spawn each tick once cut
+    public final static float FRAMEBUDGET = 1 / 50f; // Seconds a frame may take on average before quality is cut
+    public final static float TICKBUDGET = 0.75f * TIMESTEP; // Seconds a step may take on average before quality is cut
+    public final static float QUALITYHEADROOM = 0.6f; // Fraction of both budgets frames and steps must stay under for quality to be restored
+    public final static int QUALITYWINDOW = 60; // Frames averaged over, and waited between each change of quality
+    public final static boolean SIMULATIONTHREAD = true; // Step the level on its own thread, replays are always stepped on the render thread
+    public final static int STATSINTERVAL = 30; // Steps between refreshes of the stress test level's figures
+    public final static String REPLAYFILE = "lastLevel.zrec"; // Where the last level played is recorded to by --record without a file
 }
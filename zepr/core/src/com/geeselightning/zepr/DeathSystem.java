@@ -0,0 +1,36 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.systems.IteratingSystem;
+
+/**
+ * Removes zombies that have been killed and turns killed nonZombies into zombies.
+ * #changed:   Added this class, moving the death code from the level loops
+ */
+class DeathSystem extends IteratingSystem {
+
+    private final LevelSimulation simulation;
+
+    DeathSystem(LevelSimulation simulation, int priority) {
+        super(LevelSimulation.CHARACTERS, priority);
+        this.simulation = simulation;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        simulation.getProfile().mark(StepProfile.Phase.DEATH);
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float deltaTime) {
+        Zombie character = CharacterComponent.get(entity);
+        if (character.getHealth() > 0)
+            return;
+
+        if (character.isZombie)
+            simulation.zombieKilled(character);
+        else
+            simulation.nonZombieInfected(character);
+    }
+}
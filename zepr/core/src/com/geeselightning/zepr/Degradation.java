@@ -0,0 +1,27 @@
+package com.geeselightning.zepr;
+
+/**
+ * Non-essential work QualityGovernor cuts back when frames or steps run over budget, in the order it is cut.
+ * A quality level of n means the first n of these are in effect, so restoring undoes them in reverse order.
+ * #changed:   Added this class
+ */
+public enum Degradation {
+    AIRATE("far AI update rate"),
+    PHYSICSITERATIONS("physics iterations"),
+    HEALTHBARS("health bars"),
+    SPAWNRATE("spawn rate");
+
+    public final String label;
+
+    Degradation(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @param quality a quality level, the number of degradations in effect
+     * @return true if this degradation is in effect at the level
+     */
+    public boolean isIn(int quality) {
+        return quality > ordinal();
+    }
+}
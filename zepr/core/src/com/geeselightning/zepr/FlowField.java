@@ -0,0 +1,227 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.ai.steer.behaviors.FollowFlowField;
+import com.badlogic.gdx.maps.Map;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.objects.CircleMapObject;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Directions towards one target for every tile of the map, found with a single breadth first search
+ * from the target's tile around the shapes of the collisionLayer. Every zombie chasing the target
+ * follows the same field, so the cost of pathfinding does not grow with the number of zombies.
+ * The field is only searched again when the target moves into a different tile.
+ * #changed:   Added this class
+ */
+public class FlowField implements FollowFlowField.FlowField<Vector2> {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    // Neighbour offsets, the first four are the sides of a tile and the last four the corners
+    private static final int[] NEIGHBOURX = { 1, -1, 0, 0, 1, 1, -1, -1 };
+    private static final int[] NEIGHBOURY = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+    private final int width;
+    private final int height;
+    private final float tileWidth;
+    private final float tileHeight;
+    private final boolean[] blocked;
+    private final int[] distance;
+    private final int[] queue;
+    // Direction to move from each tile, zero where there is nowhere better to go
+    private final Vector2[] flow;
+    private Character target;
+    private int targetCell = -1;
+    private int searches; // the number of times the field has been searched
+
+    /**
+     * Constructor for the field, marking every tile a collisionLayer shape overlaps as blocked
+     * @param map the map of the level
+     */
+    public FlowField(Map map) {
+        MapProperties properties = map.getProperties();
+        width = properties.get("width", Integer.class);
+        height = properties.get("height", Integer.class);
+        tileWidth = properties.get("tilewidth", Integer.class);
+        tileHeight = properties.get("tileheight", Integer.class);
+
+        int cells = width * height;
+        blocked = new boolean[cells];
+        distance = new int[cells];
+        queue = new int[cells];
+        flow = new Vector2[cells];
+        for (int i = 0; i < cells; i++) {
+            distance[i] = UNREACHABLE;
+            flow[i] = new Vector2();
+        }
+
+        for (MapObject object : map.getLayers().get("collisionLayer").getObjects()) {
+            if (object instanceof RectangleMapObject)
+                block(((RectangleMapObject) object).getRectangle());
+            else if (object instanceof PolygonMapObject)
+                block(((PolygonMapObject) object).getPolygon());
+            else if (object instanceof CircleMapObject)
+                block(((CircleMapObject) object).getCircle());
+        }
+    }
+
+    private void block(Rectangle rectangle) {
+        // Shapes that only touch the edge of a tile do not block it, zero size shapes still block one row
+        int fromX = Math.max(0, (int) Math.floor(rectangle.x / tileWidth));
+        int fromY = Math.max(0, (int) Math.floor(rectangle.y / tileHeight));
+        int toX = Math.min(width - 1, Math.max(fromX, (int) Math.ceil((rectangle.x + rectangle.width) / tileWidth) - 1));
+        int toY = Math.min(height - 1, Math.max(fromY, (int) Math.ceil((rectangle.y + rectangle.height) / tileHeight) - 1));
+        for (int x = fromX; x <= toX; x++)
+            for (int y = fromY; y <= toY; y++)
+                blocked[y * width + x] = true;
+    }
+
+    private void block(Polygon polygon) {
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                if (polygon.contains((x + 0.5f) * tileWidth, (y + 0.5f) * tileHeight))
+                    blocked[y * width + x] = true;
+    }
+
+    private void block(Circle circle) {
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                if (circle.contains((x + 0.5f) * tileWidth, (y + 0.5f) * tileHeight))
+                    blocked[y * width + x] = true;
+    }
+
+    /**
+     * Point the field at a target, searching again if the target is in a different tile to the last search.
+     * Reads the target's snapshot, so must be called after the snapshots are taken and before the AI runs.
+     * @param target the character to find paths to
+     * @return true if the field was searched again
+     */
+    public boolean update(Character target) {
+        this.target = target;
+        Vector2 position = target.getPosition();
+        return update(position.x * Constant.PHYSICSDENSITY, position.y * Constant.PHYSICSDENSITY);
+    }
+
+    /**
+     * Search from a point, if it is in a different tile to the last search
+     * @param x x coordinate of the target in pixels
+     * @param y y coordinate of the target in pixels
+     * @return true if the field was searched again
+     */
+    public boolean update(float x, float y) {
+        int cell = cellOf(x, y);
+        if (cell == targetCell)
+            return false;
+
+        targetCell = cell;
+        search();
+        return true;
+    }
+
+    /**
+     * Breadth first search outwards from the target's tile, then point every tile at its closest neighbour
+     */
+    private void search() {
+        searches++;
+        for (int i = 0; i < distance.length; i++)
+            distance[i] = UNREACHABLE;
+        if (targetCell < 0)
+            return;
+
+        // The target's own tile is searched from even if a shape overlaps it
+        int head = 0;
+        int tail = 0;
+        distance[targetCell] = 0;
+        queue[tail++] = targetCell;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            for (int n = 0; n < 4; n++) {
+                int neighbour = cellAt(x + NEIGHBOURX[n], y + NEIGHBOURY[n]);
+                if (neighbour >= 0 && !blocked[neighbour] && distance[neighbour] == UNREACHABLE) {
+                    distance[neighbour] = distance[cell] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        for (int cell = 0; cell < flow.length; cell++)
+            pointToClosestNeighbour(cell);
+    }
+
+    private void pointToClosestNeighbour(int cell) {
+        Vector2 direction = flow[cell].setZero();
+        if (distance[cell] == UNREACHABLE || cell == targetCell)
+            return;
+
+        int x = cell % width;
+        int y = cell / width;
+        int closest = distance[cell];
+        for (int n = 0; n < NEIGHBOURX.length; n++) {
+            int neighbour = cellAt(x + NEIGHBOURX[n], y + NEIGHBOURY[n]);
+            if (neighbour < 0 || distance[neighbour] >= closest)
+                continue;
+            // Corners are only cut when both tiles beside the corner are open
+            if (n >= 4 && (distance[cellAt(x + NEIGHBOURX[n], y)] == UNREACHABLE
+                    || distance[cellAt(x, y + NEIGHBOURY[n])] == UNREACHABLE))
+                continue;
+            closest = distance[neighbour];
+            direction.set(NEIGHBOURX[n], NEIGHBOURY[n]).nor();
+        }
+    }
+
+    /**
+     * Direction a character at the given position should move in to reach the target.
+     * Only reads the field, so can be called by AIPhase from any thread.
+     * @param position the position of the character in Box2D units
+     * @return the normalised direction to move in, or null if the character is outside the field,
+     *         cannot reach the target, or is already in the target's tile
+     */
+    @Override
+    public Vector2 lookup(Vector2 position) {
+        int cell = cellOf(position.x * Constant.PHYSICSDENSITY, position.y * Constant.PHYSICSDENSITY);
+        if (cell < 0 || cell == targetCell || distance[cell] == UNREACHABLE)
+            return null;
+        return flow[cell];
+    }
+
+    /**
+     * @param x x coordinate in pixels
+     * @param y y coordinate in pixels
+     * @return the number of tiles between the point and the target, or -1 if it cannot reach the target
+     */
+    public int getDistance(float x, float y) {
+        int cell = cellOf(x, y);
+        return cell < 0 || distance[cell] == UNREACHABLE ? -1 : distance[cell];
+    }
+
+    /**
+     * @return the character the field leads to
+     */
+    public Character getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the number of times the field has been searched
+     */
+    public int getSearches() {
+        return searches;
+    }
+
+    private int cellOf(float x, float y) {
+        return cellAt((int) Math.floor(x / tileWidth), (int) Math.floor(y / tileHeight));
+    }
+
+    private int cellAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return -1;
+        return y * width + x;
+    }
+}
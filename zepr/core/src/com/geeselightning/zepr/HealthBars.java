@@ -0,0 +1,99 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Draws the health bars of a frame together, after the characters. The bars are collected as coloured quads
+ * on the blank atlas image and sent to the batch in one call, so drawing them never changes the batch colour
+ * or breaks up the character sprites. Characters at full health have no bar.
+ * #changed:   Added this class
+ */
+public class HealthBars {
+
+    private static final int QUADFLOATS = 20; // four vertices of x, y, colour, u, v
+    private static final float WIDTH = 32;
+    private static final float HEIGHT = 3;
+    private static final float OFFSET = 32; // height above the bottom of the sprite the bar is drawn at
+
+    private final TextureRegion blank;
+    private final float u, v; // middle of the blank image, so filtering never reaches its edges
+    private final float background = Color.BLACK.toFloatBits();
+    private final float fill = Color.RED.toFloatBits();
+    private float[] vertices = new float[64 * 2 * QUADFLOATS];
+    private int count; // floats used in vertices
+    private int bars;
+
+    /**
+     * Constructor for the health bars, acquires the blank image until dispose()
+     */
+    public HealthBars() {
+        blank = Sprites.acquire("blank");
+        u = (blank.getU() + blank.getU2()) / 2;
+        v = (blank.getV() + blank.getV2()) / 2;
+    }
+
+    /**
+     * Add a character's health bar to this frame's bars
+     * @param x left edge of the character sprite where it is drawn this frame
+     * @param y bottom edge of the character sprite where it is drawn this frame
+     * @param health the character's health
+     * @param maxHealth the character's full health, no bar is added if health is at or above it
+     */
+    public void add(float x, float y, int health, int maxHealth) {
+        if (health >= maxHealth)
+            return;
+        float fillWidth = health > 0 ? (int) (WIDTH * health / maxHealth) : 0;
+
+        if (count + 2 * QUADFLOATS > vertices.length) {
+            float[] larger = new float[vertices.length * 2];
+            System.arraycopy(vertices, 0, larger, 0, count);
+            vertices = larger;
+        }
+        quad(x, y + OFFSET, WIDTH, HEIGHT, background);
+        if (fillWidth > 0)
+            quad(x + 1, y + OFFSET + 1, fillWidth, HEIGHT - 2, fill);
+        bars++;
+    }
+
+    private void quad(float x, float y, float width, float height, float colour) {
+        vertex(x, y, colour);
+        vertex(x, y + height, colour);
+        vertex(x + width, y + height, colour);
+        vertex(x + width, y, colour);
+    }
+
+    private void vertex(float x, float y, float colour) {
+        vertices[count++] = x;
+        vertices[count++] = y;
+        vertices[count++] = colour;
+        vertices[count++] = u;
+        vertices[count++] = v;
+    }
+
+    /**
+     * @return the number of bars added since the last draw
+     */
+    public int size() {
+        return bars;
+    }
+
+    /**
+     * Draw every bar added since the last draw and start collecting the next frame's
+     * @param batch the batch to draw with, between begin() and end()
+     */
+    public void draw(Batch batch) {
+        if (count > 0)
+            batch.draw(blank.getTexture(), vertices, 0, count);
+        count = 0;
+        bars = 0;
+    }
+
+    /**
+     * Release the blank image
+     */
+    public void dispose() {
+        Sprites.release("blank");
+    }
+}
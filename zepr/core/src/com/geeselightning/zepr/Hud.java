@@ -0,0 +1,93 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.utils.StringBuilder;
+
+/**
+ * The values shown by the labels of the in game HUD. A label is only given new text when a value it shows
+ * has changed, and numbers are written into a reused StringBuilder, so while nothing changes the HUD makes no
+ * garbage and scene2d has nothing to lay out again.
+ * #changed:   Added this class, moving the label text code from Level.update()
+ */
+public class Hud {
+
+    private final Label progressLabel, healthLabel, powerUpLabel, abilityLabel, survivorsLabel;
+    private final StringBuilder text = new StringBuilder(64);
+    // The values shown, impossible to start with so the first update fills every label
+    private int wave = -1;
+    private int zombiesRemaining = -1;
+    private int health = Integer.MIN_VALUE;
+    private int survivors = -1;
+    private String powerUp;
+    private String ability;
+    private int changes; // labels given new text since the HUD was created
+
+    /**
+     * Constructor for the HUD
+     * @param progressLabel the label showing the wave and zombies remaining
+     * @param healthLabel the label showing the player's health
+     * @param powerUpLabel the label showing the active power up
+     * @param abilityLabel the label showing the state of the player's special ability
+     * @param survivorsLabel the label showing the number of survivors
+     */
+    public Hud(Label progressLabel, Label healthLabel, Label powerUpLabel, Label abilityLabel, Label survivorsLabel) {
+        this.progressLabel = progressLabel;
+        this.healthLabel = healthLabel;
+        this.powerUpLabel = powerUpLabel;
+        this.abilityLabel = abilityLabel;
+        this.survivorsLabel = survivorsLabel;
+    }
+
+    /**
+     * Show the latest values, changing only the labels whose values differ from those shown
+     * @param wave the current wave number
+     * @param zombiesRemaining the zombies left in the wave
+     * @param health the player's health
+     * @param powerUp the description of the active power up
+     * @param ability the description of the player's special ability
+     * @param survivors the number of nonZombies alive
+     */
+    public void update(int wave, int zombiesRemaining, int health, String powerUp, String ability, int survivors) {
+        if (wave != this.wave || zombiesRemaining != this.zombiesRemaining) {
+            this.wave = wave;
+            this.zombiesRemaining = zombiesRemaining;
+            text.setLength(0);
+            text.append("Wave ").append(wave).append(", ").append(zombiesRemaining).append(" zombies remaining.");
+            show(progressLabel, text);
+        }
+        if (health != this.health) {
+            this.health = health;
+            text.setLength(0);
+            text.append("Health: ").append(health).append("HP");
+            show(healthLabel, text);
+        }
+        // The descriptions are constant strings, so comparing references is usually enough
+        if (powerUp != this.powerUp && (powerUp == null || !powerUp.equals(this.powerUp))) {
+            this.powerUp = powerUp;
+            show(powerUpLabel, powerUp);
+        }
+        if (ability != this.ability && (ability == null || !ability.equals(this.ability))) {
+            this.ability = ability;
+            show(abilityLabel, ability);
+        }
+        if (survivors != this.survivors) {
+            this.survivors = survivors;
+            text.setLength(0);
+            text.append("Survivors: ").append(survivors);
+            show(survivorsLabel, text);
+        }
+    }
+
+    private void show(Label label, CharSequence value) {
+        // The label copies the text, so the builder can be reused straight away
+        label.setText(value);
+        changes++;
+    }
+
+    /**
+     * @return the number of times a label has been given new text, for checking the HUD stays still
+     */
+    public int getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,13 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Component;
+
+/**
+ * Marks a character as being a nonZombie. Swapped with ZombieComponent when the character changes side.
+ * #changed:   Added this class
+ */
+public class HumanComponent implements Component {
+
+    // Holds no data, so every entity shares one instance
+    static final HumanComponent TAG = new HumanComponent();
+}
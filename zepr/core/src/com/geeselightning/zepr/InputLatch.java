@@ -0,0 +1,84 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Hands the player controls from the render thread to a simulation stepping on its own thread. The keyboard,
+ * mouse and camera may only be read on the render thread, so each frame capture() copies what the source
+ * reports, and each step takes the latest copy. A step sees the same controls from start to finish however
+ * many frames pass during it.
+ * #changed:   Added this class
+ */
+public class InputLatch implements PlayerInput {
+
+    // Written by capture() on the render thread, guarded by this
+    private int pendingKeys;
+    private boolean pendingAttack;
+    private boolean pendingHasAim;
+    private final Vector2 pendingAim = new Vector2();
+    private final Vector2 sourceAim = new Vector2();
+
+    // Read by the simulation, only changed by update()
+    private int keys;
+    private boolean attack;
+    private boolean hasAim;
+    private final Vector2 aim = new Vector2();
+
+    /**
+     * Copy the controls from the source, called on the render thread once a frame
+     * @param source the keyboard and mouse
+     */
+    public void capture(PlayerInput source) {
+        source.update();
+        int pressed = 0;
+        for (int i = 0; i < InputRecorder.KEYS.length; i++)
+            if (source.isKeyPressed(InputRecorder.KEYS[i]))
+                pressed |= 1 << i;
+        boolean attackPressed = source.isAttackPressed();
+        boolean aimed = source.getAim(sourceAim);
+        synchronized (this) {
+            pendingKeys = pressed;
+            pendingAttack = attackPressed;
+            pendingHasAim = aimed;
+            if (aimed)
+                pendingAim.set(sourceAim);
+        }
+    }
+
+    /**
+     * Take the controls last captured for this step
+     */
+    @Override
+    public void update() {
+        synchronized (this) {
+            keys = pendingKeys;
+            attack = pendingAttack;
+            hasAim = pendingHasAim;
+            aim.set(pendingAim);
+        }
+    }
+
+    /**
+     * @param keycode the key to check, only the keys in InputRecorder.KEYS are passed on
+     */
+    @Override
+    public boolean isKeyPressed(int keycode) {
+        for (int i = 0; i < InputRecorder.KEYS.length; i++)
+            if (InputRecorder.KEYS[i] == keycode)
+                return (keys & 1 << i) != 0;
+        return false;
+    }
+
+    @Override
+    public boolean isAttackPressed() {
+        return attack;
+    }
+
+    @Override
+    public boolean getAim(Vector2 out) {
+        if (!hasAim)
+            return false;
+        out.set(aim);
+        return true;
+    }
+}
@@ -0,0 +1,208 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.math.Vector2;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Passes the controls of another PlayerInput through to the simulation while recording them, so the
+ * session can be played back by InputReplay. The simulation is deterministic given its seed and input,
+ * so the seed, the level and the input of every step are enough to play the whole session again.
+ * Every few hundred steps a keyframe stores the state hash and where that step's input
+ * starts, so a replay can check it has not diverged and can be started from any keyframe.
+ * <p>
+ * Each step is one byte of flags for the keys, attack and aim. When the aim moves it is followed by the
+ * change in aim since the last step as two zig-zag varints in quarter pixels, so a still mouse costs
+ * nothing and a moving one a couple of bytes. The aim is measured from zero again after every keyframe.
+ * The keyframe index and step count are written after the steps, with the index position in the last bytes.
+ * #changed:   Added this class
+ */
+public class InputRecorder implements PlayerInput {
+
+    static final int MAGIC = 0x5A524543; // "ZREC"
+    static final int VERSION = 1;
+    static final int TRAILERSIZE = 12; // step count, keyframe count and index position at the end of the file
+    // Keys in the order of their flag bits, the attack and aim flags come after them
+    static final int[] KEYS = { Keys.W, Keys.A, Keys.S, Keys.D, Keys.E };
+    static final int ATTACK = 1 << 5;
+    static final int AIM = 1 << 6;
+    static final int AIMMOVED = 1 << 7;
+    static final float AIMSCALE = 4; // the aim is stored in quarter pixels
+
+    private final PlayerInput source;
+    private final Zepr.Location location;
+    private final int keyframeInterval;
+    private final ByteArrayOutputStream steps = new ByteArrayOutputStream(4096);
+    private final ByteArrayOutputStream keyframes = new ByteArrayOutputStream(256);
+    private LevelSimulation simulation;
+    private Player.PlayerType playerType;
+    private int tick;
+    private int keyframeCount;
+    private int lastKeyframeTick;
+    private int lastKeyframeOffset;
+    private int flags;
+    private int aimX; // aim of the last step that had one, in quarter pixels
+    private int aimY;
+    private final Vector2 sourceAim = new Vector2();
+
+    /**
+     * Constructor for the recorder
+     * @param source where the controls come from
+     * @param location the level being recorded
+     * @param keyframeInterval the number of steps between keyframes
+     */
+    public InputRecorder(PlayerInput source, Zepr.Location location, int keyframeInterval) {
+        this.source = source;
+        this.location = location;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Start recording a simulation, which must be at its first step and read its input from this recorder
+     * @param simulation the simulation to record, state hashing is turned on for the keyframes
+     */
+    public void start(LevelSimulation simulation) {
+        this.simulation = simulation;
+        this.playerType = Player.getType();
+        simulation.setStateHashing(true);
+    }
+
+    /**
+     * Samples the source once for the step and records it
+     */
+    @Override
+    public void update() {
+        if (simulation == null)
+            throw new IllegalStateException("start() must be called before the simulation is updated");
+
+        source.update();
+        if (tick % keyframeInterval == 0)
+            addKeyframe();
+        tick++;
+
+        flags = 0;
+        for (int i = 0; i < KEYS.length; i++)
+            if (source.isKeyPressed(KEYS[i]))
+                flags |= 1 << i;
+        if (source.isAttackPressed())
+            flags |= ATTACK;
+
+        int x = aimX;
+        int y = aimY;
+        if (source.getAim(sourceAim)) {
+            flags |= AIM;
+            x = Math.round(sourceAim.x * AIMSCALE);
+            y = Math.round(sourceAim.y * AIMSCALE);
+            if (x != aimX || y != aimY)
+                flags |= AIMMOVED;
+        }
+
+        steps.write(flags);
+        if ((flags & AIMMOVED) != 0) {
+            writeVarint(steps, zigZag(x - aimX));
+            writeVarint(steps, zigZag(y - aimY));
+            aimX = x;
+            aimY = y;
+        }
+    }
+
+    /**
+     * Keyframe for the state at the end of the last step, taken before this step's input is written
+     */
+    private void addKeyframe() {
+        writeVarint(keyframes, tick - lastKeyframeTick);
+        writeVarint(keyframes, steps.size() - lastKeyframeOffset);
+        writeLong(keyframes, simulation.getStateHash());
+        lastKeyframeTick = tick;
+        lastKeyframeOffset = steps.size();
+        keyframeCount++;
+        aimX = 0;
+        aimY = 0;
+    }
+
+    @Override
+    public boolean isKeyPressed(int keycode) {
+        for (int i = 0; i < KEYS.length; i++)
+            if (KEYS[i] == keycode)
+                return (flags & 1 << i) != 0;
+        return false;
+    }
+
+    @Override
+    public boolean isAttackPressed() {
+        return (flags & ATTACK) != 0;
+    }
+
+    /**
+     * The recorder passes on the aim rounded to how it is stored, so the recorded session and its replay
+     * see exactly the same input
+     */
+    @Override
+    public boolean getAim(Vector2 out) {
+        if ((flags & AIM) == 0)
+            return false;
+        out.set(aimX / AIMSCALE, aimY / AIMSCALE);
+        return true;
+    }
+
+    /**
+     * @return the number of steps recorded
+     */
+    public int getTicks() {
+        return tick;
+    }
+
+    /**
+     * Write everything recorded so far to a file, the recording can carry on afterwards
+     * @param file the file to write, replaced if it exists
+     * @throws IOException if the file could not be written
+     */
+    public void save(File file) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(32);
+        writeInt(header, MAGIC);
+        header.write(VERSION);
+        writeLong(header, simulation.getSeed());
+        writeVarint(header, location.ordinal());
+        // Zero when no type has been chosen
+        writeVarint(header, playerType == null ? 0 : playerType.ordinal() + 1);
+        writeVarint(header, keyframeInterval);
+
+        ByteArrayOutputStream trailer = new ByteArrayOutputStream(TRAILERSIZE);
+        writeInt(trailer, tick);
+        writeInt(trailer, keyframeCount);
+        writeInt(trailer, header.size() + steps.size());
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            header.writeTo(out);
+            steps.writeTo(out);
+            keyframes.writeTo(out);
+            trailer.writeTo(out);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // Fixed size values are big endian, the order ByteBuffer reads by default
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        for (int shift = 24; shift >= 0; shift -= 8)
+            out.write(value >>> shift);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
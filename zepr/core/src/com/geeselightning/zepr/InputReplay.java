@@ -0,0 +1,245 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.math.Vector2;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Plays back a session recorded by InputRecorder as the input of a new simulation. The file is memory
+ * mapped and decoded one step at a time, so even a long session is never copied into the heap.
+ * Box2D cannot restore a saved world, so seeking to a keyframe re-runs the simulation from the start
+ * without drawing it, checking the state hash at every keyframe it passes on the way.
+ * #changed:   Added this class
+ */
+public class InputReplay implements PlayerInput {
+
+    private final ByteBuffer buffer;
+    private final long seed;
+    private final Zepr.Location location;
+    private final Player.PlayerType playerType;
+    private final int keyframeInterval;
+    private final int stepsStart; // position of the first step in the buffer
+    private final int ticks;
+    private final int[] keyframeTicks;
+    private final int[] keyframeOffsets;
+    private final long[] keyframeHashes;
+    private int tick;
+    private int flags;
+    private int aimX;
+    private int aimY;
+
+    /**
+     * Open a recording
+     * @param file the file written by InputRecorder.save()
+     * @return the replay, at the start of the recording
+     * @throws IOException if the file could not be read or is not a recording
+     */
+    public static InputReplay open(File file) throws IOException {
+        // The mapping stays valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new InputReplay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Constructor for the replay
+     * @param buffer the whole recording
+     * @throws IOException if the buffer does not hold a recording
+     */
+    public InputReplay(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < InputRecorder.TRAILERSIZE + 5 || buffer.getInt(0) != InputRecorder.MAGIC)
+            throw new IOException("Not a recording");
+        if (buffer.get(4) != InputRecorder.VERSION)
+            throw new IOException("Recording version " + buffer.get(4) + " is not supported");
+
+        buffer.position(5);
+        seed = buffer.getLong();
+        location = Zepr.Location.values()[readVarint()];
+        int type = readVarint();
+        playerType = type == 0 ? null : Player.PlayerType.values()[type - 1];
+        keyframeInterval = readVarint();
+        stepsStart = buffer.position();
+
+        int trailer = buffer.limit() - InputRecorder.TRAILERSIZE;
+        ticks = buffer.getInt(trailer);
+        int keyframeCount = buffer.getInt(trailer + 4);
+        keyframeTicks = new int[keyframeCount];
+        keyframeOffsets = new int[keyframeCount];
+        keyframeHashes = new long[keyframeCount];
+        buffer.position(buffer.getInt(trailer + 8));
+        int keyframeTick = 0;
+        int keyframeOffset = 0;
+        for (int i = 0; i < keyframeCount; i++) {
+            keyframeTick += readVarint();
+            keyframeOffset += readVarint();
+            keyframeTicks[i] = keyframeTick;
+            keyframeOffsets[i] = keyframeOffset;
+            keyframeHashes[i] = buffer.getLong();
+        }
+
+        rewind();
+    }
+
+    /**
+     * Go back to the first step of the recording
+     */
+    public void rewind() {
+        tick = 0;
+        flags = 0;
+        aimX = 0;
+        aimY = 0;
+        buffer.position(stepsStart);
+    }
+
+    /**
+     * Decodes the next step, once the recording runs out nothing is pressed
+     */
+    @Override
+    public void update() {
+        flags = 0;
+        if (isFinished())
+            return;
+
+        // The aim is measured from zero again after every keyframe
+        if (tick % keyframeInterval == 0) {
+            aimX = 0;
+            aimY = 0;
+        }
+        tick++;
+
+        flags = buffer.get() & 0xFF;
+        if ((flags & InputRecorder.AIMMOVED) != 0) {
+            aimX += unZigZag(readVarint());
+            aimY += unZigZag(readVarint());
+        }
+    }
+
+    @Override
+    public boolean isKeyPressed(int keycode) {
+        for (int i = 0; i < InputRecorder.KEYS.length; i++)
+            if (InputRecorder.KEYS[i] == keycode)
+                return (flags & 1 << i) != 0;
+        return false;
+    }
+
+    @Override
+    public boolean isAttackPressed() {
+        return (flags & InputRecorder.ATTACK) != 0;
+    }
+
+    @Override
+    public boolean getAim(Vector2 out) {
+        if ((flags & InputRecorder.AIM) == 0)
+            return false;
+        out.set(aimX / InputRecorder.AIMSCALE, aimY / InputRecorder.AIMSCALE);
+        return true;
+    }
+
+    /**
+     * Step a simulation playing this replay up to a keyframe, checking the state at every keyframe on the way.
+     * The simulation must read its input from this replay and be either new or earlier in the same replay,
+     * to seek backwards start a new simulation.
+     * @param simulation the simulation to step, state hashing is turned on
+     * @param keyframe the index of the keyframe to stop at
+     * @return true if the simulation reached the keyframe and matched the recording at every keyframe passed
+     */
+    public boolean seek(LevelSimulation simulation, int keyframe) {
+        if (simulation.getTick() == 0)
+            rewind();
+        simulation.setStateHashing(true);
+
+        int target = keyframeTicks[keyframe];
+        int next = getKeyframeAt(simulation.getTick()) + 1;
+        boolean matched = true;
+        while (simulation.getTick() < target && !simulation.isFinished()) {
+            simulation.update(Constant.TIMESTEP);
+            if (next < keyframeTicks.length && keyframeTicks[next] == simulation.getTick()) {
+                // The input read so far must also end where the recorder was when it took the keyframe
+                matched &= keyframeHashes[next] == simulation.getStateHash()
+                        && buffer.position() == stepsStart + keyframeOffsets[next];
+                next++;
+            }
+        }
+        return matched && simulation.getTick() == target;
+    }
+
+    /**
+     * @param tick a step of the recording
+     * @return the index of the last keyframe at or before the step
+     */
+    public int getKeyframeAt(long tick) {
+        int keyframe = 0;
+        while (keyframe + 1 < keyframeTicks.length && keyframeTicks[keyframe + 1] <= tick)
+            keyframe++;
+        return keyframe;
+    }
+
+    /**
+     * @return true once every recorded step has been played
+     */
+    public boolean isFinished() {
+        return tick >= ticks;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Zepr.Location getLocation() {
+        return location;
+    }
+
+    /**
+     * @return the player type the session was played as, null if none had been chosen
+     */
+    public Player.PlayerType getPlayerType() {
+        return playerType;
+    }
+
+    /**
+     * @return the number of steps recorded
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getKeyframeCount() {
+        return keyframeTicks.length;
+    }
+
+    /**
+     * @param keyframe the index of the keyframe
+     * @return the step the keyframe was taken after
+     */
+    public int getKeyframeTick(int keyframe) {
+        return keyframeTicks[keyframe];
+    }
+
+    /**
+     * @param keyframe the index of the keyframe
+     * @return the state hash of the recorded simulation at the keyframe
+     */
+    public long getKeyframeHash(int keyframe) {
+        return keyframeHashes[keyframe];
+    }
+
+    private int readVarint() {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -3,109 +3,127 @@ package com.geeselightning.zepr;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.math.Vector3;
-import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
-import com.badlogic.gdx.physics.box2d.World;
-import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.*;
-import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
-import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
-import com.geeselightning.zepr.Zombie.Type;
 import com.geeselightning.zepr.powerups.*;
 import com.geeselightning.zepr.screens.TextScreen;
-import java.util.ArrayList;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 
 
-public class Level implements Screen {
+/**
+ * Screen that displays a LevelSimulation, feeding it the keyboard and mouse and
+ * turning its events into music, sounds and screen changes.
+ * #changed:   The game logic has been moved to LevelSimulation. The simulation is stepped by a SimulationRunner,
+ *             on its own thread unless a replay is playing, and the screen only draws the snapshots it publishes
+ */
+public class Level implements Screen, LevelSimulation.Listener, PauseOverlay.Listener {
 
     private Zepr parent;
     private TiledMap map;
     private OrthogonalTiledMapRenderer renderer;
+    private StaticMapCache mapCache; // the map baked into chunks, drawn instead of using renderer when useMapCache is set
+    private boolean useMapCache = Constant.STATICMAPCACHE;
+    private HealthBars healthBars;
     private OrthographicCamera camera;
-    private static Player player;
-    private ArrayList<Zombie> aliveZombies;
-    private ArrayList<Zombie> nonZombies; //Added by Shaun of the Devs
+    private LevelSimulation simulation;
+    private SimulationRunner runner; // steps the simulation and publishes what to draw
     private ZeprInputProcessor inputProcessor;
+    private InputLatch latch; // passes the keyboard and mouse to a simulation thread, null when unthreaded
+    private InputRecorder recorder; // records the session, null when not recording or playing a replay
+    private InputReplay replay; // the session being played back, null when played live
     private boolean isPaused;
     private Stage stage;
     private Table table;
+    private PauseOverlay pauseOverlay; // built once, shown while the game is paused
     private Table tutorialTable = null;
     private Skin skin;
-    private int currentWaveNumber;
-    private int zombiesRemaining; // the number of zombies left to kill to complete the wave
-    private int zombiesToSpawn; // the number of zombies that are left to be spawned this wave
-    private int nonZombiesToSpawn; // Added by Shaun of the Devs for non zombie spawning
-    private int survivors = 0; // Added by Shaun of the Devs to display survivors for a scoring system
-    private PowerUp currentPowerUp;
     //private Box2DDebugRenderer debugRenderer;
     private LevelConfig config;
-    private World world;
-    private int teleportCounter;
     private Label progressLabel, healthLabel, powerUpLabel, abilityLabel, tutorialLabel, survivorsLabel;
-    static Texture blank;
-    private Zombie originalBoss;
-    public boolean toCure = false; // Added to work with cure power up
-    public Float[] cureLocation = new Float[2]; // Added to work with cure power up
+    private Label statsLabel; // tick time and character counts, only shown on the stress test level
+    private Hud hud; // keeps the labels above up to date
+    private QualityGovernor governor; // cuts work when frames or steps run long, null when recording or replaying
     private Music backgroundMusic;
+    private Music levelMusic;
+    private Music windMusic;
     private Boolean wind = false;
+    private int drawnCharacters; // zombies and nonZombies drawn in the last frame
+    private int culledCharacters; // zombies and nonZombies skipped in the last frame as the camera couldn't see them
+    private long statsTick = -Constant.STATSINTERVAL; // simulation step the stats label was last refreshed at
 
     /**
      * Constructor for the level
      * @param zepr the instance of the Zepr class to use
      * @param config level configuration to use
-     * #changed:   Moved most of the code from show() to here
+     * #changed:   Moved most of the code from show() to here. The world and characters are now created by LevelSimulation.
+     *             The session is recorded if the game was started with a recording path
      */
     public Level(Zepr zepr, LevelConfig config) {
-        //Initialise Box2D physics engine
-    	this.world =  new World(new Vector2(0, 0), true);
-    	
+        this(zepr, config, null);
+    }
+
+    /**
+     * Constructor for a level that plays back a recorded session instead of reading the keyboard and mouse
+     * @param zepr the instance of the Zepr class to use
+     * @param replay the recorded session
+     * #changed:   Added this constructor
+     */
+    public Level(Zepr zepr, InputReplay replay) {
+        this(zepr, LevelConfig.forLocation(replay.getLocation()), replay);
+    }
+
+    private Level(Zepr zepr, LevelConfig config, InputReplay replay) {
     	parent = zepr;
     	this.config = config;
-        blank = new Texture("blank.png");
-        
-        player = new Player(new Texture("player01.png"), new Vector2(300, 300), world);
-        
         skin = new Skin(Gdx.files.internal("skin/pixthulhu-ui.json"));
-        aliveZombies = new ArrayList<>();
-        nonZombies = new ArrayList<>();
-        inputProcessor = new ZeprInputProcessor();
         
         progressLabel = new Label("", skin);
         healthLabel = new Label("", skin);
         powerUpLabel = new Label("", skin);
         abilityLabel = new Label("", skin);
         survivorsLabel = new Label("", skin); // Added by Shaun of the Devs to display number of nonZombies
-         
-        // Set up data for first wave of zombies
-        this.zombiesRemaining = config.waves[0].numberToSpawn;
-        this.zombiesToSpawn = zombiesRemaining;
+        hud = new Hud(progressLabel, healthLabel, powerUpLabel, abilityLabel, survivorsLabel);
+        if (config.location == Zepr.Location.STRESS)
+            statsLabel = new Label("", skin);
 
-        // Creating a new libgdx stage to contain the pause menu and in game UI
+        // Creating a new libgdx stage to contain the in game UI, the pause menu has its own
         this.stage = new Stage(new ScreenViewport());
 
-        // Creating a table to hold the UI and pause menu
+        // Creating a table to hold the UI
         this.table = new Table();
         table.setFillParent(true);
         stage.addActor(table);
+        table.top().left();
+        table.add(progressLabel).pad(10).left();
+        table.row().pad(10);
+        table.add(healthLabel).pad(10).left();
+        table.row();
+        table.add(powerUpLabel).pad(10).left();
+        table.row();
+        table.add(abilityLabel).pad(10).left();
+        table.row();
+        table.add(survivorsLabel).pad(10).left();
+        if (statsLabel != null) {
+            table.row();
+            table.add(statsLabel).pad(10).left();
+        }
         
         if(config.location == Zepr.Location.TOWN) {
         	tutorialTable = new Table();
         	tutorialTable.setFillParent(true);
         	stage.addActor(tutorialTable);
         	
-        	tutorialLabel = new Label("", skin);
+        	tutorialLabel = new Label("TUTORIAL WAVE \n\n Up: W \n Left: A \n Down: S \n Right: D \n Attack: Left Click \n Look: Mouse \n Special Ability: E", skin);
         	
         	tutorialTable.top();
         	tutorialTable.row().pad(50);
@@ -121,81 +139,123 @@ public class Level implements Screen {
 
         // renderer renders the .tmx map as an orthogonal (top-down) map.
         renderer = new OrthogonalTiledMapRenderer(map, Constant.WORLDSCALE);
+        // The tile layers never change, so they are baked once and the renderer is only kept for comparison
+        mapCache = new StaticMapCache(map, Constant.WORLDSCALE, Constant.MAPCHUNKTILES);
+        healthBars = new HealthBars();
+        // Textures can only be loaded on this thread, so every image the simulation may switch to is held here
+        for (String image : Sprites.IMAGES)
+            Sprites.acquire(image);
            
         //debugRenderer = new Box2DDebugRenderer();
         
-        MapBodyBuilder.buildShapes(map, Constant.PHYSICSDENSITY / Constant.WORLDSCALE, world);
-
-        
         // It is only possible to view the render of the map through an orthographic camera.
         camera = new OrthographicCamera();
 
-        //reset player instance
-        player.respawn(config.playerSpawn);
+        inputProcessor = new ZeprInputProcessor(camera);
+        this.replay = replay;
+        if (replay == null) {
+            // The simulation thread can't read the mouse or camera, the latch hands it what they showed
+            PlayerInput input = inputProcessor;
+            if (Constant.SIMULATIONTHREAD) {
+                latch = new InputLatch();
+                input = latch;
+            }
+            // A new seed each time so no two plays are the same, the seed is kept by the simulation
+            if (parent.getRecordingPath() != null) {
+                recorder = new InputRecorder(input, config.location, Constant.KEYFRAMEINTERVAL);
+                startSimulation(recorder, System.nanoTime());
+                recorder.start(simulation);
+            } else {
+                startSimulation(input, System.nanoTime());
+            }
+        } else {
+            Player.setType(replay.getPlayerType());
+            startSimulation(replay, replay.getSeed());
+        }
+        // Seeking a replay changes the simulation between frames, so replays are stepped on this thread
+        runner = new SimulationRunner(simulation, this, latch != null);
+        // Recordings don't hold quality changes, so a recorded session keeps full quality to replay exactly
+        if (replay == null && recorder == null)
+            governor = new QualityGovernor();
 
         Gdx.input.setInputProcessor(inputProcessor);
+        pauseOverlay = new PauseOverlay(skin, this, inputProcessor);
 
-        teleportCounter = 0;
-        currentWaveNumber = 0;
+        levelMusic = Gdx.audio.newMusic(Gdx.files.internal(config.musicLocation));
 
         resumeGame();
     }
 
-    public void setCurrentPowerUp(PowerUp currentPowerUp) {
-        this.currentPowerUp = currentPowerUp;
-    }
-
     public LevelConfig getConfig() {
         return config;
     }
 
-    public static Player getPlayer() {
-    	return player;
+    /**
+     * Create a new simulation of the level, replacing the current one
+     * @param input where the player controls come from
+     * @param seed the seed of the simulation
+     */
+    private void startSimulation(PlayerInput input, long seed) {
+        if (simulation != null)
+            simulation.dispose();
+        simulation = new LevelSimulation(config, map, input, seed);
     }
 
     /**
-     * Called when the player's health <= 0 to end the stage.
+     * Jump between the keyframes of a replay, the right arrow goes to the next keyframe and the left arrow
+     * back to the start of the current one, or to the one before if already there
      */
-    private void gameOver() {
-        isPaused = true;
-        parent.setScreen(new TextScreen(parent, "You died."));
-    }
+    private void seekReplay() {
+        int keyframe = replay.getKeyframeAt(simulation.getTick());
+        if (Gdx.input.isKeyJustPressed(Keys.RIGHT) && keyframe + 1 < replay.getKeyframeCount()) {
+            keyframe++;
+        } else if (Gdx.input.isKeyJustPressed(Keys.LEFT)) {
+            if (simulation.getTick() == replay.getKeyframeTick(keyframe) && keyframe > 0)
+                keyframe--;
+            // A Box2D world can't be restored, so going back runs the level again from the start
+            startSimulation(replay, replay.getSeed());
+        } else {
+            return;
+        }
 
+        // Skipped steps make no sounds
+        simulation.setListener(LevelSimulation.NO_LISTENER);
+        if (!replay.seek(simulation, keyframe))
+            Gdx.app.log("Replay", "Diverged from the recording before keyframe " + keyframe);
+        runner.setSimulation(simulation);
+    }
 
     /**
-     * Spawns multiple zombies and nonZombies cycling through spawnPoints until the given amount have been spawned.
-     * @param spawnPoints locations where zombies should be spawned on this stage
-     * @param numberToSpawn number of zombies to spawn
-     * @param waveType the type of zombies/nonZombies in the wave
+     * Write the recording of this session to the game's recording path so it can be watched again
      */
-    private void spawnZombies(int numberToSpawn, ArrayList<Vector2> spawnPoints, Type waveType) {
-
-    	// Modified by Shaun of the Devs to allow different wave types to spawn 
-        for (int i = 0; i < numberToSpawn; i++) {
-            Zombie.Type type = waveType;
-            Zombie zombie = new Zombie(spawnPoints.get(i % spawnPoints.size()), world, type);
-            if (zombie.isZombie) {
-            	aliveZombies.add(zombie);
-            } else {
-            	nonZombies.add(zombie);
-            }
-            if(type == Zombie.Type.BOSS2)
-                originalBoss = zombie;
+    private void saveRecording() {
+        if (recorder == null)
+            return;
+        // The recorder is written to by every step
+        runner.pause();
+        try {
+            recorder.save(new File(parent.getRecordingPath()));
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
     /**
-     * Converts the mousePosition which is a Vector2 representing the coordinates of the mouse within the game window
-     * to a Vector2 of the equivalent coordinates in the world.
-     *
-     * @return Vector2 of the mouse position in the world.
+     * Leave a replay once the recording has been played or the level has ended
      */
-    private Vector2 getMouseWorldCoordinates() {
-        // Must first convert to 3D vector as camera.unproject() does not take 2D vectors.
-        Vector3 screenCoordinates = new Vector3(Gdx.input.getX(), Gdx.input.getY(), 0);
-        Vector3 worldCoords3 = camera.unproject(screenCoordinates);
+    private void endReplay() {
+        backgroundMusic.stop();
+        isPaused = true;
+        parent.setScreen(new TextScreen(parent, "Replay finished."));
+    }
 
-        return new Vector2(worldCoords3.x, worldCoords3.y);
+    /**
+     * Called when the player's health <= 0 to end the stage.
+     */
+    private void gameOver() {
+        saveRecording();
+        isPaused = true;
+        parent.setScreen(new TextScreen(parent, "You died."));
     }
 
     @Override
@@ -204,41 +264,30 @@ public class Level implements Screen {
 
     /**
      * Run this procedure once to set the game to pause mode
+     * #changed:   Shows the pause menu built with the level instead of building a new one
      */
     private void pauseGame() {
         isPaused = true;
+        runner.pause();
         backgroundMusic.pause();
-        // Input processor has to be changed back once unpaused.
-        Gdx.input.setInputProcessor(stage);
+        pauseOverlay.show();
+    }
 
-        TextButton resume = new TextButton("Resume", skin);
-        TextButton exit = new TextButton("Exit", skin);
-        
-        if(tutorialTable != null)
-        	tutorialTable.clear();
-        
-        table.clear();
-        table.center();
-        table.add(resume).pad(10);
-        table.row();
-        table.add(exit);
-        // Defining actions for the resume button.
-        resume.addListener(new ChangeListener() {
-            @Override
-            public void changed(ChangeEvent event, Actor actor) {
-                // Change input processor back
-                Gdx.input.setInputProcessor(inputProcessor);
-                resumeGame();
-            }
-        });
+    /**
+     * The resume button of the pause menu was pressed
+     */
+    @Override
+    public void resumed() {
+        resumeGame();
+    }
 
-        // Defining actions for the exit button.
-        exit.addListener(new ChangeListener() {
-            @Override
-            public void changed(ChangeEvent event, Actor actor) {
-            	saveGame();
-            }
-        });
+    /**
+     * The exit button of the pause menu was pressed
+     */
+    @Override
+    public void exited() {
+        saveRecording();
+        saveGame();
     }
 
     /**
@@ -261,72 +310,30 @@ public class Level implements Screen {
 
     /**
      *  Run this procedure once to resume the game after pausing or upon level loading
-     *  Sets up GUI labels
+     *  #changed:   The GUI labels are now set up once in the constructor, the HUD is simply not drawn while paused
      */
     private void resumeGame() {
         isPaused = false;
-		backgroundMusic = config.backgroundMusic;
+        runner.resume();
+		backgroundMusic = levelMusic;
     	backgroundMusic.setLooping(true);
 		backgroundMusic.play();
-        table.clear();
-        table.top().left();
-        table.add(progressLabel).pad(10).left();
-        table.row().pad(10);
-        table.add(healthLabel).pad(10).left();
-        table.row();
-        table.add(powerUpLabel).pad(10).left();
-        table.row();
-        table.add(abilityLabel).pad(10).left();
-        table.row();
-        table.add(survivorsLabel).pad(10).left();
-        
-        if(tutorialTable != null && currentWaveNumber == 1) {
-        	tutorialTable.top();
-        	tutorialTable.row().pad(50);
-        	tutorialTable.add(tutorialLabel).top();
-        }
-    }
-    
-    // Added by Shaun of the Devs to determine who each character should attack
-    public Character getClosestAttackable(boolean isZombie, Character attacker) {
-        ArrayList<Character> attackable = new ArrayList<>();
-    	if (isZombie) {
-            for (Zombie nonZombie : nonZombies) {
-            	attackable.add(nonZombie);
-            }
-            if (player.isVisible() && !player.isZombie) {
-            	attackable.add(player);
-            }
-    	} else {
-            for (Zombie zombie : aliveZombies) {
-            	attackable.add(zombie);
-            }
-            if (player.isVisible() && player.isZombie) {
-            	attackable.add(player);
-            }
-    	}
-    	float closestDistance = 100000000; 
-    	Character closestChar = null;
-    	for (Character character : attackable) {
-    		 float xDistance = attacker.getPosition().x - character.getPosition().x;
-    		 float yDistance = attacker.getPosition().y - character.getPosition().y;
-    		 float distance = (float) Math.sqrt(Math.pow(yDistance, 2) + Math.pow(xDistance, 2));
-    		 if (closestDistance > distance) {
-    			 closestDistance = distance;
-    			 closestChar = character;
-    		 }
-    	}
-    	return closestChar;
+        pauseOverlay.hide();
     }
 
     /**
      * Render the level and its contents to the screen
      * @param delta the time between the start of the previous call and now
      * #changed:   Moved most of the code from here to update(). Moved render code for
-     *             zombies and players into their own classes to increase encapsulation
+     *             zombies and players into their own classes to increase encapsulation.
+     *             update() now runs in fixed steps and characters are drawn interpolated between steps.
+     *             Characters and the power up outside the camera's view are not drawn.
+     *             Health bars are drawn together after the characters. The map is drawn from StaticMapCache.
+     *             Everything is drawn from the latest WorldSnapshot, the simulation is never read here
      */
     @Override
     public void render(float delta) {
+        long frameStart = System.nanoTime();
     	
     	 // Clears the screen to black.
         Gdx.gl.glClearColor(0f, 0f, 0f, 1);
@@ -334,320 +341,252 @@ public class Level implements Screen {
 
         if (!isPaused){
 
-            update(delta);
+            if (latch != null)
+                latch.capture(inputProcessor);
+            if (replay != null)
+                seekReplay();
+            // Characters the camera showed last frame keep full AI
+            runner.setView(camera.position.x - camera.viewportWidth * camera.zoom / 2,
+                    camera.position.y - camera.viewportHeight * camera.zoom / 2,
+                    camera.viewportWidth * camera.zoom, camera.viewportHeight * camera.zoom);
+            // Does nothing when the simulation has its own thread
+            runner.update(delta);
+            if (replay != null && replay.isFinished() && !isPaused)
+                endReplay();
 
             if (!isPaused) {
 
+                WorldSnapshot snapshot = runner.latest();
+                update(snapshot);
+                // How far between the snapshot's last two simulation steps this frame falls
+                float alpha = runner.getAlpha(snapshot);
+
                 // Keep the player central in the screen.
-                camera.position.set(player.getCenter().x, player.getCenter().y, 0);
+                camera.position.set(snapshot.player.getCenterX(alpha), snapshot.player.getCenterY(alpha), 0);
                 camera.update();
 
+                // The renderer's batch draws the characters whichever way the map is drawn
                 renderer.setView(camera);
-                renderer.render();
+                if (Gdx.input.isKeyJustPressed(Keys.F3))
+                    useMapCache = !useMapCache;
+                if (useMapCache)
+                    mapCache.render(camera);
+                else
+                    renderer.render();
 
                 Batch batch = renderer.getBatch();
                 batch.begin();
 
-                player.draw(batch);
-
-                // Draw zombies
-                for (Zombie zombie : aliveZombies)
-                    zombie.draw(batch);
-                
-                // Added by Shaun of the Devs to draw nonZombies
-                for (Zombie nonZombie : nonZombies)
-                    nonZombie.draw(batch);
-
-                if (currentPowerUp != null) {
-                    // Activate the powerup up if the player moves over it and it's not already active
-                    // Only render the powerup if it is not active, otherwise it disappears
-                    if (!currentPowerUp.isActive()) {
-                        if (currentPowerUp.overlapsPlayer())
-                            currentPowerUp.activate();
-                        currentPowerUp.draw(batch);
+                snapshot.player.draw(batch, alpha);
+                snapshot.player.addHealthBar(healthBars, alpha);
+
+                // The snapshot holds the zombies and nonZombies near the view, each is tested against the
+                // frustum where it is drawn this frame. Only the player's health bar is kept once bars are cut
+                boolean bars = !Degradation.HEALTHBARS.isIn(snapshot.quality);
+                drawnCharacters = 0;
+                for (int i = 0; i < snapshot.size(); i++) {
+                    WorldSnapshot.Entry character = snapshot.get(i);
+                    if (character.isInFrustum(camera.frustum, alpha)) {
+                        character.draw(batch, alpha);
+                        if (bars)
+                            character.addHealthBar(healthBars, alpha);
+                        drawnCharacters++;
                     }
-                    currentPowerUp.update(delta);
                 }
+                culledCharacters = snapshot.characters - drawnCharacters;
+
+                // Only render the powerup if it is not active, otherwise it disappears
+                if (snapshot.powerUpRegion != null && camera.frustum.boundsInFrustum(
+                        snapshot.powerUpX + snapshot.powerUpWidth / 2, snapshot.powerUpY + snapshot.powerUpHeight / 2,
+                        0, snapshot.powerUpWidth / 2, snapshot.powerUpHeight / 2, 0))
+                    batch.draw(snapshot.powerUpRegion, snapshot.powerUpX, snapshot.powerUpY,
+                            snapshot.powerUpWidth, snapshot.powerUpHeight);
+
+                // Every bar in one draw, after the sprites so none is covered by a neighbouring character
+                healthBars.draw(batch);
 
                 batch.end();
 
-                //debugRenderer.render(world, camera.combined.scl(Constant.PHYSICSDENSITY));
+                // Steps pick up the new level from the next one, as set on the runner
+                if (governor != null)
+                    runner.setQuality(governor.update((System.nanoTime() - frameStart) / 1e9f, snapshot.stepNanos / 1e9f));
+
+                //debugRenderer.render(simulation.getWorld(), camera.combined.scl(Constant.PHYSICSDENSITY));
             }
         }
         
-        stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f));
-        stage.draw();
+        // The HUD labels have no actions, so the stage is never acted on. Only the pause menu is drawn while paused
+        if (pauseOverlay.isShown())
+            pauseOverlay.render(delta);
+        else
+            stage.draw();
 
-        if (Gdx.input.isKeyPressed(Keys.ESCAPE))
-            pauseGame();
+        // Escape pauses and resumes, once for each press however long it is held
+        if (Gdx.input.isKeyJustPressed(Keys.ESCAPE)) {
+            if (pauseOverlay.isShown())
+                resumeGame();
+            else if (!isPaused)
+                pauseGame();
+        }
     }
 
     /**
-     * Update everything in the level
-     * @param delta the time between the start of the previous call and now
-     * #changed:   Added this method, most of the code here was in render().
-     *             Optimised a lot of the original code and increased encapsulation
+     * @return the number of zombies and nonZombies drawn in the last frame
      */
-    public void update(float delta) {
-        world.step(1/60f, 6, 2);
+    public int getDrawnCharacters() {
+        return drawnCharacters;
+    }
 
-        player.update(delta);
-        player.look(getMouseWorldCoordinates());
+    /**
+     * @return the number of zombies and nonZombies not drawn in the last frame as they were out of view
+     */
+    public int getCulledCharacters() {
+        return culledCharacters;
+    }
 
-        //#changed:   Added tutorial text code
-        if(tutorialTable != null && currentWaveNumber > 1) {
+    /**
+     * Update everything in the level
+     * @param snapshot the latest snapshot of the simulation
+     * #changed:   Added this method, most of the code here was in render().
+     *             Optimised a lot of the original code and increased encapsulation.
+     *             The game logic is in LevelSimulation, this only updates the HUD.
+     *             The HUD labels are only changed when their values change, and are read from a snapshot
+     *             once a frame rather than from the simulation every step
+     */
+    private void update(WorldSnapshot snapshot) {
+        //#changed:   Added tutorial text code. The tutorial is removed once, rather than cleared every step
+        if(tutorialTable != null && snapshot.wave > 1) {
             tutorialTable.clear();
+            tutorialTable = null;
         }
 
-        // When you die, end the level.
-        if (player.health <= 0) {
-        	backgroundMusic.stop();
-        	
-        	if (player.isZombie) {
-                gameOver();
-        	} else {
-        		wind = true;
-        		player.switchType();
-        		backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("wind.mp3"));
-        		backgroundMusic.play();
-        	}
+        // Only the labels whose values changed are given new text
+        hud.update(snapshot.wave, snapshot.zombiesRemaining, snapshot.playerHealth, snapshot.powerUp,
+                snapshot.ability, snapshot.survivors); // Survivors added by Shaun of the Devs
+        // The figures change every step, so they are refreshed a few times a second rather than every frame
+        if (statsLabel != null && snapshot.tick - statsTick >= Constant.STATSINTERVAL) {
+            statsTick = snapshot.tick;
+            statsLabel.setText(String.format("Tick: %.2fms (AI %.2f, physics %.2f)\nAgents: %d, bodies: %d (%d awake)"
+                    + "\nDrawn: %d, culled: %d\nMap: %s (F3), simulation %s\nQuality cuts: %d",
+                    snapshot.stepNanos / 1e6, snapshot.aiNanos / 1e6, snapshot.physicsNanos / 1e6,
+                    snapshot.characters + 1, snapshot.bodies, snapshot.awakeBodies, drawnCharacters, culledCharacters,
+                    useMapCache ? mapCache.getDrawnChunks() + " cached chunks" : "tiled map renderer",
+                    runner.isThreaded() ? "threaded" : "on render thread", snapshot.quality));
         }
-        
-        //#changed:   Moved this zombie removal code here from the Zombie class
-        for(int i = 0; i < aliveZombies.size(); i++) {
-        	
-            Zombie zomb = aliveZombies.get(i);
-            zomb.update(delta);
-            
-            // Added by Shaun of the Devs to cure zombies with power up
-            // Cures zombies in a small area around the cure power up 
-            if (toCure) {
-            	if (!zomb.isBoss()) {
-            		if (Math.abs(zomb.getX() - cureLocation[0]) < 100) {
-            			if (Math.abs(zomb.getY() - cureLocation[1]) < 100) {
-            					if(wind){
-            						backgroundMusic.stop();
-            						backgroundMusic = config.backgroundMusic;
-            		        		backgroundMusic.play();
-            					}
-            					zomb.switchType();
-            					zombiesRemaining--;
-            					survivors++;
-            					aliveZombies.remove(zomb);
-            					nonZombies.add(zomb);
-            			}
-            		}
-            	}
-            }
-            
-            if (zomb.getHealth() <= 0) {
-                zombiesRemaining--;
-                aliveZombies.remove(zomb);
-                zomb.dispose();
-            }
-        }
-		toCure = false;
-
-        zombiesRemaining = aliveZombies.size();
-
-        // Resolve all possible attacks
-        for (Zombie zombie : aliveZombies) {
-            // Zombies will only attack if they are in range, the attack has cooled down, and they are
-            // facing a player or nonZombie.
-            // Player will only attack in the reverse situation but player.attack must also be true. This is
-            //controlled by the ZeprInputProcessor. So the player will only attack when the user clicks.
-
-        	//Changed by Shaun of the Devs to accomodate nonZombies
-            zombie.closestAttackable = getClosestAttackable(true, zombie);
-        		
-            if (player.isAttackReady() && !player.isZombie)
-                player.attack(zombie, delta);
-            if(zombie.closestAttackable != null)
-            	zombie.attack(zombie.closestAttackable, delta);
-        }
-        
-        // Added by Shaun of the Devs for nonZombies
-        for(int i = 0; i < nonZombies.size(); i++) {
-            Zombie zomb = nonZombies.get(i);
-            zomb.update(delta);
-            
-            if (zomb.getHealth() <= 0) {
-            	zomb.health = zomb.maxhealth;
-            	zomb.switchType();
-            	survivors--;
-                nonZombies.remove(zomb);
-                aliveZombies.add(zomb);
-            }
-        }
-        
-        // Added by Shaun of the Devs for nonZombies
-        for (Zombie zombie : nonZombies) {
-            // Zombies will only attack if they are in range, the attack has cooled down, and they are
-            // facing a player.
-            // Player will only attack in the reverse situation but player.attack must also be true. This is
-            //controlled by the ZeprInputProcessor. So the player will only attack when the user clicks.
-            zombie.closestAttackable = getClosestAttackable(false, zombie);
-        	
-            if (player.isAttackReady() && player.isZombie)
-                player.attack(zombie, delta);
-            if(zombie.closestAttackable != null)
-            	zombie.attack(zombie.closestAttackable, delta);
-        }
-
-        if ((zombiesRemaining == 0 && !player.isZombie) || (survivors == 0 && player.isZombie)) {
-
-            // Spawn a power up and the end of a wave, if there isn't already a powerUp on the level
-            //#changed:   Added code for the new power ups here
-            if (currentPowerUp == null) {
-
-                int random = (int)(Math.random() * 6 + 1);
-                switch(random) {
-                    case 1:
-                        currentPowerUp = new PowerUpHeal(this, player);
-                        break;
-                    case 2:
-                        currentPowerUp = new PowerUpSpeed(this, player);
-                        break;
-                    case 3:
-                        currentPowerUp = new PowerUpImmunity(this, player);
-                        break;
-                    case 4:
-                        currentPowerUp = new PowerUpInstaKill(this, player);
-                        break;
-                    case 5:
-                        currentPowerUp = new PowerUpInvisibility(this, player);
-                        break;
-                    case 6:
-                        currentPowerUp = new PowerUpCure(this, player);
-                        break;
-                }
-            }
+    }
 
+    /**
+     * Play the hit sound when the player damages a zombie
+     * #changed:   Moved here from Player.attack()
+     */
+    @Override
+    public void zombieHit() {
+        Sound sound = Zepr.manager.get("zombie_take_dmg.wav", Sound.class);
+        sound.play(0.2f);
+    }
 
-            if ((currentWaveNumber > config.waves.length) && zombiesRemaining == 0) {
-                // Level completed, back to select screen and complete stage.
-                backgroundMusic.stop();
-                isPaused = true;
-                
-                // Added to calculate new score
-                int newScore = 0;
-            	int possibleSurvivors = 0;
-            	for (Wave wave : config.nonZombieWaves) {
-            		possibleSurvivors += wave.numberToSpawn;
-            	}
-            	parent.maxScores[config.level] = possibleSurvivors;
-                for (Zombie nonZombie : nonZombies) {
-                	newScore += 1;
-                }
-                if (parent.levelScores[config.level] < newScore) {
-                	parent.levelScores[config.level] = newScore;
-                }
-                parent.score = 0;
-                for (int num : parent.levelScores) {
-                	parent.score += num;
-                }
-                parent.maxScore = 0;
-                for (int num : parent.maxScores) {
-                	parent.maxScore += num;
-                }
+    /**
+     * Switch to the wind music once the player has been turned into a zombie
+     */
+    @Override
+    public void playerInfected() {
+        backgroundMusic.stop();
+        wind = true;
+        if (windMusic == null)
+            windMusic = Gdx.audio.newMusic(Gdx.files.internal("wind.mp3"));
+        backgroundMusic = windMusic;
+        backgroundMusic.play();
+    }
 
-                if (config.location == Zepr.Location.CONSTANTINE)
-                    parent.setScreen(new TextScreen(parent, "Game completed. " + Integer.toString(parent.score) + "/" + Integer.toString(parent.maxScore) + " saved"));
-                else {
-                    parent.setScreen(new TextScreen(parent, "Level completed. " + Integer.toString(survivors) + "/" + Integer.toString(possibleSurvivors) + " saved"));
-                    if(Zepr.progress == config.location) {
-                        Zepr.progress = Zepr.Location.values()[Zepr.progress.ordinal() + 1];
-                        saveGame();
-                    }
-                }
-            } else if ((currentWaveNumber > config.waves.length) && survivors == 0) {
-                // Level completed, back to select screen and complete stage.
-            	backgroundMusic.stop();
-                isPaused = true;
-                
-                // Added to calculate new score
-                int newScore = 0;
-            	int possibleSurvivors = 0;
-            	for (Wave wave : config.nonZombieWaves) {
-            		possibleSurvivors += wave.numberToSpawn;
-            	}
-            	parent.maxScores[config.level] = possibleSurvivors;
-                for (Zombie nonZombie : nonZombies) {
-                	newScore += 1;
-                }
-                if (parent.levelScores[config.level] < newScore) {
-                	parent.levelScores[config.level] = newScore;
-                }
-                parent.score = 0;
-                for (int num : parent.levelScores) {
-                	parent.score += num;
-                }
-                parent.maxScore = 0;
-                for (int num : parent.maxScores) {
-                	parent.maxScore += num;
-                }
-                
-                parent.setScreen(new TextScreen(parent, "York has been overrun by zombies!"));
-            }else {
-                if (currentWaveNumber < config.waves.length) {
-                    // Update zombiesRemaining with the number of zombies of the new wave
-                    zombiesRemaining = config.waves[currentWaveNumber].numberToSpawn;
-                    nonZombiesToSpawn = config.nonZombieWaves[currentWaveNumber].numberToSpawn;
-                    survivors += nonZombiesToSpawn;
-                } else
-                    zombiesRemaining = 0;
-                	
-
-                // Wave complete, increment wave number
-                currentWaveNumber++;
-            }
+    /**
+     * Bring the level music back if it was replaced by the wind
+     */
+    @Override
+    public void zombiesCured() {
+        if (wind) {
+            backgroundMusic.stop();
+            backgroundMusic = levelMusic;
+            backgroundMusic.play();
+        }
+    }
 
-            zombiesToSpawn = zombiesRemaining;
+    @Override
+    public void playerDied() {
+        backgroundMusic.stop();
+        gameOver();
+    }
 
-            // Changed by Shaun of the Devs to spawn nonZombies separately from Zombies
-            // Spawn all zombies in the stage
-            if (config.waves.length >= currentWaveNumber) {
-            	spawnZombies(zombiesToSpawn, config.zombieSpawnPoints, config.waves[currentWaveNumber-1].zombieType);
-            	spawnZombies(nonZombiesToSpawn, config.nonZombieSpawnPoints, config.nonZombieWaves[currentWaveNumber-1].zombieType);
-            }
+    /**
+     * Level completed, back to select screen and complete stage.
+     */
+    @Override
+    public void levelCompleted() {
+        if (replay != null) {
+            endReplay();
+            return;
         }
+        saveRecording();
+        backgroundMusic.stop();
+        isPaused = true;
+
+        int possibleSurvivors = updateScore();
 
-        //Teleporting and minon spawning behavior for boss2
-        teleportCounter++;
-        if (currentWaveNumber <= config.waves.length && config.waves[currentWaveNumber-1].zombieType == Zombie.Type.BOSS2 && teleportCounter > 100) {
-            teleportCounter = 0;
-            if (originalBoss.getHealth() < 250 && Math.random() < 0.1)
-                aliveZombies.add(new Zombie(new Vector2(200,200), world, Zombie.Type.BOSS2));
-            for (Zombie boss : aliveZombies) {
-                Vector2 start = boss.getPhysicsPosition();
-                Vector2 end =  boss.closestAttackable.getPhysicsPosition();
-                Vector2 position = new Vector2((start.x + end.x)/2, (start.y + end.y)/2);
-                boss.setCharacterPosition(position);
+        if (config.location == Zepr.Location.CONSTANTINE)
+            parent.setScreen(new TextScreen(parent, "Game completed. " + Integer.toString(parent.score) + "/" + Integer.toString(parent.maxScore) + " saved"));
+        else {
+            parent.setScreen(new TextScreen(parent, "Level completed. " + Integer.toString(simulation.getSurvivors()) + "/" + Integer.toString(possibleSurvivors) + " saved"));
+            if(Zepr.progress == config.location) {
+                Zepr.progress = Zepr.Location.values()[Zepr.progress.ordinal() + 1];
+                saveGame();
             }
         }
+    }
 
+    /**
+     * Level completed with no survivors, back to select screen.
+     */
+    @Override
+    public void levelOverrun() {
+        if (replay != null) {
+            endReplay();
+            return;
+        }
+        saveRecording();
+        backgroundMusic.stop();
+        isPaused = true;
 
-        String progressString = ("Wave " + currentWaveNumber + ", " + zombiesRemaining + " zombies remaining.");
-        String healthString = ("Health: " + player.health + "HP");
-        String abilityString;
-        String powerUpString = PowerUp.activePowerUp;
-        String survivorsString = ("Survivors: " + Integer.toString(survivors)); // Added by Shaun of the Devs
-
-        if(player.ability)
-            abilityString = ("Press E to trigger special ability");
-        else if(player.abilityUsed)
-            abilityString = player.abilityString;
-        else
-            abilityString = ("Special ability used");
+        updateScore();
 
-        progressLabel.setText(progressString);
-        powerUpLabel.setText(powerUpString);
-        healthLabel.setText(healthString);
-        abilityLabel.setText(abilityString);
-        survivorsLabel.setText(survivorsString); // Added by Shaun of the Devs
+        parent.setScreen(new TextScreen(parent, "York has been overrun by zombies!"));
+    }
 
-        if(tutorialTable != null && currentWaveNumber == 1)
-            tutorialLabel.setText("TUTORIAL WAVE \n\n Up: W \n Left: A \n Down: S \n Right: D \n Attack: Left Click \n Look: Mouse \n Special Ability: E");
+    /**
+     * Record the score for this level and recalculate the game totals
+     * @return the number of survivors it was possible to save on this level
+     * #changed:   Added this method, moving the score code from update()
+     */
+    private int updateScore() {
+        int possibleSurvivors = 0;
+        for (Wave wave : config.nonZombieWaves) {
+            possibleSurvivors += wave.numberToSpawn;
+        }
+        // The stress test isn't part of the game
+        if (config.location == Zepr.Location.STRESS)
+            return possibleSurvivors;
+        parent.maxScores[config.level] = possibleSurvivors;
+        int newScore = simulation.getHumans().size();
+        if (parent.levelScores[config.level] < newScore) {
+            parent.levelScores[config.level] = newScore;
+        }
+        parent.score = 0;
+        for (int num : parent.levelScores) {
+            parent.score += num;
+        }
+        parent.maxScore = 0;
+        for (int num : parent.maxScores) {
+            parent.maxScore += num;
+        }
+        return possibleSurvivors;
     }
 
     /**
@@ -660,6 +599,7 @@ public class Level implements Screen {
     	// Resize the camera depending the size of the window.
         camera.viewportHeight = height;
         camera.viewportWidth = width;
+        pauseOverlay.resize(width, height);
     }
 
     @Override
@@ -670,30 +610,34 @@ public class Level implements Screen {
     public void resume() {
     }
 
+    /**
+     * #changed:   Stops the simulation thread once the level is left
+     */
     @Override
     public void hide() {
+        runner.dispose();
     }
 
     /**
      * Dispose of the level, clearing the memory
-     * #changed:   Added code to dispose of Box2D elements
+     * #changed:   Added code to dispose of Box2D elements, now done by LevelSimulation
      */
     @Override
     public void dispose() {
         skin.dispose();
         stage.dispose();
+        pauseOverlay.dispose();
         map.dispose();
         renderer.dispose();
+        mapCache.dispose();
+        healthBars.dispose();
         //debugRenderer.dispose();
-        if (currentPowerUp != null)
-            currentPowerUp.getTexture().dispose();
-        for (Zombie zombie : aliveZombies)
-            zombie.dispose();
-        player.dispose();
-        
-        Array<Body> bodies = new Array<>();
-        world.getBodies(bodies);
-        for(Body body : bodies)
-        	world.destroyBody(body);
+        runner.dispose();
+        simulation.dispose();
+        for (String image : Sprites.IMAGES)
+            Sprites.release(image);
+        levelMusic.dispose();
+        if (windMusic != null)
+            windMusic.dispose();
     }
 }
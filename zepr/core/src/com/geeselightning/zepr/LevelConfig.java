@@ -1,8 +1,8 @@
 package com.geeselightning.zepr;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
-import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.math.Vector2;
 
 //#changed:   Added this class
@@ -19,5 +19,221 @@ public class LevelConfig {
     // nonZombie info added by Shaun of the Devs
 	ArrayList<Vector2> nonZombieSpawnPoints;
 	Wave[] nonZombieWaves;
-	Music backgroundMusic;
+	// Music is loaded by the Level so configs can be built without audio
+	String musicLocation;
+	// Distances in pixels from the player where off screen characters move to a lower AI tier
+	float aiMidDistance = Constant.AIMIDDISTANCE;
+	float aiFarDistance = Constant.AIFARDISTANCE;
+	// Most characters the wave spawner adds in one tick
+	int spawnsPerTick = Constant.SPAWNSPERTICK;
+
+	/**
+	 * Get the configuration of one of the game levels
+	 * @param screen the level Location
+	 * @return the configuration, or null if the Location is not a level
+	 * #changed:   Moved the level values here from Zepr.changeScreen()
+	 */
+	public static LevelConfig forLocation(final Zepr.Location screen) {
+		switch(screen) {
+		case TOWN:
+			return new LevelConfig() {{
+				level = 0;
+				mapLocation = "maps/townmap.tmx";
+				playerSpawn = new Vector2(530, 600);
+				powerSpawn = new Vector2(300, 300);
+				musicLocation = "town.mp3";
+				zombieSpawnPoints = new ArrayList<>(
+			            Arrays.asList(new Vector2(200,200), new Vector2(700,700),
+			                    new Vector2(200,700), new Vector2(700,200)));
+				waves = new Wave[]{ new Wave(5, Zombie.Type.ZOMBIE1),
+                                        new Wave(10, Zombie.Type.ZOMBIE1),
+                                        new Wave(20, Zombie.Type.ZOMBIE1)};
+				location = screen;
+				nonZombieSpawnPoints = new ArrayList<>(
+			            Arrays.asList(new Vector2(550, 650)));
+				nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
+                            new Wave(1, Zombie.Type.NONZOMBIE2),
+                            new Wave(2, Zombie.Type.NONZOMBIE3)};
+			}};
+		case HALIFAX:
+			return new LevelConfig() {{
+				level = 1;
+				mapLocation = "maps/halifaxmap.tmx";
+				playerSpawn = new Vector2(300, 300);
+				powerSpawn = new Vector2(200, 200);
+				musicLocation = "halifax.mp3"; 
+				zombieSpawnPoints = new ArrayList<>(
+						Arrays.asList(new Vector2(600,100), new Vector2(100,200),
+			                    new Vector2(600,500), new Vector2(100,600)));
+                    waves = new Wave[]{ new Wave(10, Zombie.Type.ZOMBIE1),
+                                        new Wave(15, Zombie.Type.ZOMBIE1),
+                                        new Wave(20, Zombie.Type.ZOMBIE2)};
+				location = screen;
+				nonZombieSpawnPoints = new ArrayList<>(
+			            Arrays.asList(new Vector2(350, 350)));
+				nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
+                            new Wave(1, Zombie.Type.NONZOMBIE2),
+                            new Wave(2, Zombie.Type.NONZOMBIE3)};
+			}};						 
+		case CENTRALHALL:
+			return new LevelConfig() {{
+				level = 2;
+				mapLocation = "maps/centralhallmap.tmx";
+				playerSpawn = new Vector2(50, 900);
+				powerSpawn = new Vector2(250, 250);
+				musicLocation = "central.mp3";
+				zombieSpawnPoints = new ArrayList<>(
+						 Arrays.asList(new Vector2(120,100), new Vector2(630,600),
+				                   new Vector2(630,100), new Vector2(120,500)));
+                    waves = new Wave[]{ new Wave(13, Zombie.Type.ZOMBIE2),
+                                        new Wave(17, Zombie.Type.ZOMBIE2),
+                                        new Wave(1, Zombie.Type.BOSS1)};
+				location = screen;
+				nonZombieSpawnPoints = new ArrayList<>(
+			            Arrays.asList(new Vector2(50, 850)));
+				nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
+                            new Wave(1, Zombie.Type.NONZOMBIE2),
+                            new Wave(2, Zombie.Type.NONZOMBIE3)};
+			}};						 
+		case COURTYARD:
+			return new LevelConfig() {{
+				level = 3;
+				mapLocation = "maps/courtyard.tmx";
+				playerSpawn = new Vector2(300, 300);
+				powerSpawn = new Vector2(150, 150);
+				musicLocation = "courtyard.mp3";
+				zombieSpawnPoints = new ArrayList<>(
+						 Arrays.asList(new Vector2(120,100), new Vector2(630,600),
+				                   new Vector2(630,100), new Vector2(120,500)));
+                    waves = new Wave[]{ new Wave(12, Zombie.Type.ZOMBIE2),
+                                        new Wave(12, Zombie.Type.ZOMBIE2),
+                                        new Wave(12, Zombie.Type.ZOMBIE3),
+                                        new Wave(16, Zombie.Type.ZOMBIE3)};
+				location = screen;
+				nonZombieSpawnPoints = new ArrayList<>(
+			            Arrays.asList(new Vector2(360, 350)));
+				nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
+                            new Wave(1, Zombie.Type.NONZOMBIE2),
+                            new Wave(2, Zombie.Type.NONZOMBIE3),
+                            new Wave(2, Zombie.Type.NONZOMBIE3)};
+			}};
+		case GLASSHOUSE:
+			return new LevelConfig() {{
+				level = 4;
+				mapLocation = "maps/glasshousemap.tmx";
+				playerSpawn = new Vector2(400, 70);
+				powerSpawn = new Vector2(250, 250);
+				musicLocation = "glasshouse.mp3";
+				zombieSpawnPoints = new ArrayList<>(
+						 Arrays.asList(new Vector2(120,200), new Vector2(630,600),
+				                   new Vector2(630,100), new Vector2(120,500)));
+                    waves = new Wave[]{ new Wave(12, Zombie.Type.ZOMBIE3),
+                                        new Wave(20, Zombie.Type.ZOMBIE3),
+                                        new Wave(30, Zombie.Type.ZOMBIE3)};
+				location = screen;
+				nonZombieSpawnPoints = new ArrayList<>(
+			            Arrays.asList(new Vector2(450, 100)));
+				nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
+                            new Wave(1, Zombie.Type.NONZOMBIE2),
+                            new Wave(2, Zombie.Type.NONZOMBIE3)};
+			}};
+		case CONSTANTINE:
+			return new LevelConfig() {{
+				level = 5;
+				mapLocation = "maps/constantinemap.tmx";
+				playerSpawn = new Vector2(300, 300);
+				powerSpawn = new Vector2(250, 250);
+				musicLocation = "constantine.mp3";
+				zombieSpawnPoints = new ArrayList<>(
+						 Arrays.asList(new Vector2(120,100), new Vector2(630,600),
+				                   new Vector2(630,100), new Vector2(120,500)));
+                    waves = new Wave[]{ new Wave(40, Zombie.Type.ZOMBIE1),
+                                        new Wave(30, Zombie.Type.ZOMBIE2),
+                                        new Wave(20, Zombie.Type.ZOMBIE3),
+                                        new Wave(1, Zombie.Type.BOSS2)};
+				location = screen;
+				nonZombieSpawnPoints = new ArrayList<>(
+			            Arrays.asList(new Vector2(320, 350)));
+				nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
+                            new Wave(1, Zombie.Type.NONZOMBIE2),
+                            new Wave(2, Zombie.Type.NONZOMBIE3),
+                            new Wave(2, Zombie.Type.NONZOMBIE3)};
+			}};
+		case STRESS:
+			return stress(Constant.STRESSHORDE, Constant.STRESSNONZOMBIES, Constant.STRESSSPAWNSPERTICK);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Get the configuration of the stress test, three waves of one horde size on the open middle of the town map.
+	 * The spawns are spread over many points so the bodies don't start on top of each other.
+	 * @param hordeSize the number of zombies in each wave
+	 * @param nonZombies the number of nonZombies spawned with each wave
+	 * @param spawnsPerTick the most characters spawned in one tick
+	 * @return the configuration, not counted towards the game's score or progress
+	 * #changed:   Added this method
+	 */
+	public static LevelConfig stress(final int hordeSize, final int nonZombies, final int spawnsPerTick) {
+		LevelConfig config = new LevelConfig() {{
+			level = -1;
+			mapLocation = "maps/townmap.tmx";
+			playerSpawn = new Vector2(530, 600);
+			powerSpawn = new Vector2(300, 300);
+			musicLocation = "town.mp3";
+			zombieSpawnPoints = new ArrayList<>(
+					Arrays.asList(new Vector2(224, 864), new Vector2(480, 864), new Vector2(736, 864),
+							new Vector2(224, 800), new Vector2(800, 800), new Vector2(160, 416),
+							new Vector2(416, 416), new Vector2(864, 416), new Vector2(160, 352),
+							new Vector2(864, 352), new Vector2(224, 288), new Vector2(736, 288)));
+			waves = new Wave[]{ new Wave(hordeSize, Zombie.Type.ZOMBIE1),
+					new Wave(hordeSize, Zombie.Type.ZOMBIE2),
+					new Wave(hordeSize, Zombie.Type.ZOMBIE3)};
+			location = Zepr.Location.STRESS;
+			nonZombieSpawnPoints = new ArrayList<>(
+					Arrays.asList(new Vector2(544, 608), new Vector2(608, 608),
+							new Vector2(672, 608), new Vector2(544, 544)));
+			nonZombieWaves = new Wave[]{ new Wave(nonZombies, Zombie.Type.NONZOMBIE1),
+					new Wave(nonZombies, Zombie.Type.NONZOMBIE2),
+					new Wave(nonZombies, Zombie.Type.NONZOMBIE3)};
+		}};
+		// Set out here, inside the initializer spawnsPerTick would name the inherited field rather than the parameter
+		config.spawnsPerTick = spawnsPerTick;
+		return config;
+	}
+
+	public String getMapLocation() {
+		return mapLocation;
+	}
+
+	public Wave[] getWaves() {
+		return waves;
+	}
+
+	public Wave[] getNonZombieWaves() {
+		return nonZombieWaves;
+	}
+
+	public Zepr.Location getLocation() {
+		return location;
+	}
+
+	public float getAIMidDistance() {
+		return aiMidDistance;
+	}
+
+	public float getAIFarDistance() {
+		return aiFarDistance;
+	}
+
+	/**
+	 * Set the distances from the player at which off screen characters move to a lower AI tier
+	 * @param mid pixels beyond which characters are in the middle tier
+	 * @param far pixels beyond which characters are in the far tier
+	 */
+	public void setAITierDistances(float mid, float far) {
+		aiMidDistance = mid;
+		aiFarDistance = far;
+	}
 }
@@ -0,0 +1,807 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.geeselightning.zepr.Zombie.Type;
+import com.geeselightning.zepr.powerups.*;
+import java.util.ArrayList;
+
+/**
+ * The game logic of a level: physics, waves, AI, combat and power ups.
+ * Has no dependency on rendering, audio or Gdx.input so it can be run without a window,
+ * Level draws it and turns its events into sounds and screen changes.
+ * Zombies and nonZombies are entities in an Ashley engine, its systems run the AI, movement, combat and deaths.
+ * #changed:   Added this class, moving the update code out of Level
+ */
+public class LevelSimulation {
+
+    /**
+     * Receives the events of the simulation that need a response outside of the game logic
+     */
+    public interface Listener {
+        /**
+         * The player hit a zombie
+         */
+        void zombieHit();
+
+        /**
+         * The player was killed while human and has become a zombie
+         */
+        void playerInfected();
+
+        /**
+         * The cure power up turned at least one zombie back into a human
+         */
+        void zombiesCured();
+
+        /**
+         * The player was killed while a zombie
+         */
+        void playerDied();
+
+        /**
+         * Every wave has been cleared
+         */
+        void levelCompleted();
+
+        /**
+         * Every wave has finished and no humans survived
+         */
+        void levelOverrun();
+    }
+
+    /**
+     * Listener that ignores every event, used when there is nothing to respond to them
+     */
+    public static final Listener NO_LISTENER = new Listener() {
+        @Override
+        public void zombieHit() {
+        }
+
+        @Override
+        public void playerInfected() {
+        }
+
+        @Override
+        public void zombiesCured() {
+        }
+
+        @Override
+        public void playerDied() {
+        }
+
+        @Override
+        public void levelCompleted() {
+        }
+
+        @Override
+        public void levelOverrun() {
+        }
+    };
+
+    private static final float CURERADIUS = 100; // Half width of the square the cure power up affects
+
+    // Every zombie and nonZombie
+    static final Family CHARACTERS = Family.all(CharacterComponent.class).get();
+    // Characters on the zombie side
+    static final Family ZOMBIES = Family.all(CharacterComponent.class, ZombieComponent.class).get();
+    // Characters on the human side
+    static final Family HUMANS = Family.all(CharacterComponent.class, HumanComponent.class).get();
+
+    private LevelConfig config;
+    private World world;
+    private Player player;
+    private Engine engine;
+    private AISystem aiSystem;
+    private ImmutableArray<Entity> characters;
+    private ImmutableArray<Entity> zombies;
+    private ImmutableArray<Entity> humans; //Added by Shaun of the Devs
+    private int currentWaveNumber;
+    private int zombiesRemaining; // the number of zombies left to kill to complete the wave
+    private int zombiesToSpawn; // the number of zombies that are left to be spawned this wave
+    private int nonZombiesToSpawn; // Added by Shaun of the Devs for non zombie spawning
+    private int survivors = 0; // Added by Shaun of the Devs to display survivors for a scoring system
+    private PowerUp currentPowerUp;
+    private int teleportCounter;
+    private Zombie originalBoss;
+    public boolean toCure = false; // Added to work with cure power up
+    public Float[] cureLocation = new Float[2]; // Added to work with cure power up
+    private SpatialHashGrid<Zombie> zombieGrid; // Spatial index of zombies, rebuilt every tick
+    private SpatialHashGrid<Zombie> nonZombieGrid; // Spatial index of humans, rebuilt every tick
+    private final Array<Zombie> cureCandidates = new Array<>();
+    private final Vector2 gridPosition = new Vector2();
+    private final Vector2 teleportPosition = new Vector2();
+    private ZombiePool zombiePool;
+    private SpawnScheduler spawnScheduler;
+    private FlowField playerFlowField; // Paths to the player around the collisionLayer
+    private PlayerInput input;
+    private Listener listener = NO_LISTENER;
+    private final Vector2 aim = new Vector2();
+    private final Rectangle view = new Rectangle(); // What the screen shows in pixels, characters in it always think
+    private boolean hasView = false;
+    private int awakeBodies; // zombie and nonZombie bodies Box2D simulated in the last step
+    private int sleepingBodies;
+    private int dormantCharacters; // zombies and nonZombies the AI has left dormant
+    private final RandomStreams random;
+    private final StateHash stateHash = new StateHash();
+    private final StepProfile profile = new StepProfile();
+    private boolean hashing = false; // Whether the state is hashed at the end of every step
+    private long tick = 0;
+    private boolean finished = false;
+    private int quality = 0; // the number of Degradations in effect, set by QualityGovernor through setQuality()
+
+    /**
+     * Constructor for the simulation, with the default seed so every run plays out the same
+     * @param config level configuration to use
+     * @param map the loaded map of the level, its collisionLayer is turned into Box2D bodies
+     * @param input where the player controls come from
+     */
+    public LevelSimulation(LevelConfig config, TiledMap map, PlayerInput input) {
+        this(config, map, input, Constant.DEFAULTSEED);
+    }
+
+    /**
+     * Constructor for the simulation
+     * @param config level configuration to use
+     * @param map the loaded map of the level, its collisionLayer is turned into Box2D bodies
+     * @param input where the player controls come from
+     * @param seed the seed of every random number used by the simulation
+     */
+    public LevelSimulation(LevelConfig config, TiledMap map, PlayerInput input, long seed) {
+        //Initialise Box2D physics engine
+        this.world = new World(new Vector2(0, 0), true);
+        this.config = config;
+        this.input = input;
+        this.random = new RandomStreams(seed);
+
+        // The player holds the images of its type once created, this one only sizes its body
+        player = new Player(Sprites.acquire("player01"), new Vector2(300, 300), world);
+        Sprites.release("player01");
+        player.setInput(input);
+
+        engine = new Engine();
+        characters = engine.getEntitiesFor(CHARACTERS);
+        zombies = engine.getEntitiesFor(ZOMBIES);
+        humans = engine.getEntitiesFor(HUMANS);
+        // Systems run in priority order, every character has its target before anything moves
+        aiSystem = new AISystem(this, 0);
+        engine.addSystem(aiSystem);
+        engine.addSystem(new MovementSystem(profile, 1));
+        engine.addSystem(new CombatSystem(this, 2));
+        engine.addSystem(new DeathSystem(this, 3));
+
+        zombieGrid = new SpatialHashGrid<>(Constant.GRIDCELLSIZE, 64);
+        nonZombieGrid = new SpatialHashGrid<>(Constant.GRIDCELLSIZE, 64);
+        zombiePool = new ZombiePool(world, random.get(RandomStreams.Stream.SPAWN),
+                random.get(RandomStreams.Stream.WANDER));
+        spawnScheduler = new SpawnScheduler(this, config.spawnsPerTick, Constant.SPAWNBUDGET);
+
+        // Set up data for first wave of zombies
+        this.zombiesRemaining = config.waves[0].numberToSpawn;
+        this.zombiesToSpawn = zombiesRemaining;
+
+        MapBodyBuilder.buildShapes(map, Constant.PHYSICSDENSITY / Constant.WORLDSCALE, world);
+        playerFlowField = new FlowField(map);
+
+        //reset player instance
+        player.respawn(config.playerSpawn);
+
+        teleportCounter = 0;
+        currentWaveNumber = 0;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Set the power up in play, the one it replaces gives back its image
+     * @param currentPowerUp the new power up, null for none
+     * #changed:   The replaced power up is disposed
+     */
+    public void setCurrentPowerUp(PowerUp currentPowerUp) {
+        if (this.currentPowerUp != null && this.currentPowerUp != currentPowerUp)
+            this.currentPowerUp.dispose();
+        this.currentPowerUp = currentPowerUp;
+    }
+
+    public PowerUp getCurrentPowerUp() {
+        return currentPowerUp;
+    }
+
+    public LevelConfig getConfig() {
+        return config;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return the entities of every zombie and nonZombie, use CharacterComponent.get to reach the character
+     */
+    public ImmutableArray<Entity> getCharacters() {
+        return characters;
+    }
+
+    /**
+     * @return the entities of the characters on the zombie side
+     */
+    public ImmutableArray<Entity> getZombies() {
+        return zombies;
+    }
+
+    /**
+     * @return the entities of the characters on the human side
+     */
+    public ImmutableArray<Entity> getHumans() {
+        return humans;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int getCurrentWaveNumber() {
+        return currentWaveNumber;
+    }
+
+    public int getZombiesRemaining() {
+        return zombiesRemaining;
+    }
+
+    public int getSurvivors() {
+        return survivors;
+    }
+
+    public ZombiePool getZombiePool() {
+        return zombiePool;
+    }
+
+    public SpawnScheduler getSpawnScheduler() {
+        return spawnScheduler;
+    }
+
+    public FlowField getPlayerFlowField() {
+        return playerFlowField;
+    }
+
+    /**
+     * Set the area the screen shows, so characters in it always run their AI every step
+     * @param x left edge in pixels
+     * @param y bottom edge in pixels
+     * @param width width in pixels
+     * @param height height in pixels
+     */
+    public void setView(float x, float y, float width, float height) {
+        view.set(x, y, width, height);
+        hasView = true;
+    }
+
+    /**
+     * @param x x coordinate in pixels
+     * @param y y coordinate in pixels
+     * @return true if the point is in the area set by setView
+     */
+    boolean isInView(float x, float y) {
+        return hasView && view.contains(x, y);
+    }
+
+    /**
+     * Find the zombies and nonZombies whose centres are in a rectangle, through the spatial indexes.
+     * The indexes hold every character where it was at the end of the last step.
+     * @param minX left edge of the rectangle in pixels
+     * @param minY bottom edge of the rectangle in pixels
+     * @param maxX right edge of the rectangle in pixels
+     * @param maxY top edge of the rectangle in pixels
+     * @param out array the characters found are added to
+     * @return the number of characters added
+     */
+    public int queryCharacters(float minX, float minY, float maxX, float maxY, Array<Zombie> out) {
+        return zombieGrid.query(minX, minY, maxX, maxY, out) + nonZombieGrid.query(minX, minY, maxX, maxY, out);
+    }
+
+    /**
+     * @return the number of zombie and nonZombie bodies that Box2D simulated in the last step
+     */
+    public int getAwakeBodies() {
+        return awakeBodies;
+    }
+
+    /**
+     * @return the number of zombie and nonZombie bodies that were asleep in the last step
+     */
+    public int getSleepingBodies() {
+        return sleepingBodies;
+    }
+
+    /**
+     * @return the number of zombies and nonZombies that were dormant after the last step
+     */
+    public int getDormantCharacters() {
+        return dormantCharacters;
+    }
+
+    /**
+     * @param tier an AI tier
+     * @return how many zombies and nonZombies were in the tier on the last step
+     */
+    public int getAITierCount(AITier tier) {
+        return aiSystem.getAIPhase().getTierCount(tier);
+    }
+
+    /**
+     * @return the time taken by each part of the recent steps
+     */
+    public StepProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return the number of Box2D bodies in the world, including the map's
+     */
+    public int getBodyCount() {
+        return world.getBodyCount();
+    }
+
+    /**
+     * @return the number of steps simulated so far
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Cut back non-essential work, from this step on. Set between steps, or by the input during a step as
+     * replays do, before anything it affects has run.
+     * @param quality the number of Degradations to put in effect, 0 for full quality
+     */
+    public void setQuality(int quality) {
+        this.quality = quality;
+        spawnScheduler.setSpawnsPerTick(Degradation.SPAWNRATE.isIn(quality)
+                ? Math.max(config.spawnsPerTick / Constant.DEGRADEDSPAWNDIVISOR, 1) : config.spawnsPerTick);
+    }
+
+    /**
+     * @return the number of Degradations in effect
+     */
+    public int getQuality() {
+        return quality;
+    }
+
+    /**
+     * @param tier an AI tier
+     * @return the steps between each run of the AI for characters in the tier, at the current quality
+     */
+    int getAIInterval(AITier tier) {
+        if (tier != AITier.NEAR && Degradation.AIRATE.isIn(quality))
+            return tier.interval * Constant.DEGRADEDAIMULTIPLIER;
+        return tier.interval;
+    }
+
+    /**
+     * @return true once the player has died or every wave is over
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Spawns multiple zombies and nonZombies cycling through spawnPoints until the given amount have been spawned.
+     * @param spawnPoints locations where zombies should be spawned on this stage
+     * @param numberToSpawn number of zombies to spawn
+     * @param waveType the type of zombies/nonZombies in the wave
+     * #changed:   The spawns are queued on the SpawnScheduler, which spreads them over the following ticks
+     */
+    private void spawnZombies(int numberToSpawn, ArrayList<Vector2> spawnPoints, Type waveType) {
+
+    	// Modified by Shaun of the Devs to allow different wave types to spawn
+        for (int i = 0; i < numberToSpawn; i++)
+            spawnScheduler.add(spawnPoints.get(i % spawnPoints.size()), waveType);
+    }
+
+    /**
+     * Take a zombie or nonZombie from the pool and add it to the level, called by SpawnScheduler
+     * @param position the coordinates to spawn the character at
+     * @param type the type of character to spawn
+     */
+    void spawn(Vector2 position, Type type) {
+        Zombie zombie = zombiePool.obtain(position, type);
+        engine.addEntity(zombie.entity);
+        // Indexed straight away so the level can find it to draw before the next rebuild
+        insert(zombie.isZombie ? zombieGrid : nonZombieGrid, zombie);
+        if (type == Zombie.Type.BOSS2)
+            originalBoss = zombie;
+    }
+
+    // Added by Shaun of the Devs to determine who each character should attack
+    /**
+     * Finds the closest character on the opposing side to the attacker
+     * @param isZombie whether the attacker is a zombie
+     * @param attacker the character looking for something to attack
+     * @return the closest attackable character, or null if there is none
+     * #changed:   Now queries the spatial index of the opposing side instead of scanning every character,
+     *             and compares squared distances. Reads only snapshots so AIPhase can call it from any thread
+     */
+    public Character getClosestAttackable(boolean isZombie, Character attacker) {
+        Vector2 attackerPosition = attacker.getPosition();
+        float x = attackerPosition.x * Constant.PHYSICSDENSITY;
+        float y = attackerPosition.y * Constant.PHYSICSDENSITY;
+
+        SpatialHashGrid<Zombie> attackable = isZombie ? nonZombieGrid : zombieGrid;
+        Character closestChar = attackable.nearest(x, y);
+        float closestDistance = closestChar == null ? Float.MAX_VALUE : distance2(closestChar, x, y);
+
+        // The player is not kept in the index as it can switch sides at any point in the tick
+        if (player.isVisible() && player.isZombie != isZombie && distance2(player, x, y) < closestDistance)
+            closestChar = player;
+
+        return closestChar;
+    }
+
+    /**
+     * Squared distance between a character and a point in pixels
+     */
+    private float distance2(Character character, float x, float y) {
+        Vector2 position = character.getPosition();
+        float xDistance = position.x * Constant.PHYSICSDENSITY - x;
+        float yDistance = position.y * Constant.PHYSICSDENSITY - y;
+        return xDistance * xDistance + yDistance * yDistance;
+    }
+
+    /**
+     * Snapshots every character's Box2D body and refills both spatial indexes from the snapshots.
+     * Called once per tick after the physics step, later spawns, teleports and changes of side update the indexes directly.
+     * #changed:   Also takes the snapshots read by AIPhase, and counts the awake bodies and dormant characters
+     */
+    private void rebuildSpatialIndex() {
+        player.snapshot();
+        awakeBodies = 0;
+        sleepingBodies = 0;
+        dormantCharacters = 0;
+
+        zombieGrid.clear();
+        for (int i = 0; i < zombies.size(); i++) {
+            Zombie zombie = CharacterComponent.get(zombies.get(i));
+            zombie.snapshot();
+            insert(zombieGrid, zombie);
+            countBody(zombie);
+        }
+
+        nonZombieGrid.clear();
+        for (int i = 0; i < humans.size(); i++) {
+            Zombie nonZombie = CharacterComponent.get(humans.get(i));
+            nonZombie.snapshot();
+            insert(nonZombieGrid, nonZombie);
+            countBody(nonZombie);
+        }
+    }
+
+    private void countBody(Zombie zombie) {
+        if (zombie.isAwake())
+            awakeBodies++;
+        else
+            sleepingBodies++;
+        if (zombie.dormant)
+            dormantCharacters++;
+    }
+
+    /**
+     * Wake every dormant zombie and nonZombie, for events that change what they should be doing
+     */
+    private void wakeAll() {
+        for (int i = 0; i < characters.size(); i++)
+            CharacterComponent.get(characters.get(i)).wake();
+    }
+
+    private void insert(SpatialHashGrid<Zombie> grid, Zombie zombie) {
+        Vector2 position = zombie.getSnapshotPosition(gridPosition);
+        grid.insert(zombie, position.x, position.y);
+    }
+
+    private void remove(SpatialHashGrid<Zombie> grid, Zombie zombie) {
+        Vector2 position = zombie.getSnapshotPosition(gridPosition);
+        grid.remove(zombie, position.x, position.y);
+    }
+
+    // Added by Shaun of the Devs to cure zombies with power up
+    /**
+     * Cures zombies in a small area around the cure power up
+     * #changed:   Moved out of the update loop, only zombies the spatial index finds near the cure are checked.
+     *             Switching type moves the zombie between the engine families
+     */
+    private void cureZombies() {
+        // Sprite positions are offset from the body position by up to a sprite width
+        float reach = CURERADIUS + Constant.GRIDCELLSIZE;
+        zombieGrid.query(cureLocation[0] - reach, cureLocation[1] - reach,
+                cureLocation[0] + reach, cureLocation[1] + reach, cureCandidates);
+
+        boolean cured = false;
+        for (int i = 0; i < cureCandidates.size; i++) {
+            Zombie zomb = cureCandidates.get(i);
+            if (!zomb.isBoss() && Math.abs(zomb.getX() - cureLocation[0]) < CURERADIUS
+                    && Math.abs(zomb.getY() - cureLocation[1]) < CURERADIUS) {
+                remove(zombieGrid, zomb);
+                zomb.switchType();
+                zombiesRemaining--;
+                survivors++;
+                insert(nonZombieGrid, zomb);
+                cured = true;
+            }
+        }
+        cureCandidates.clear();
+
+        if (cured) {
+            wakeAll();
+            listener.zombiesCured();
+        }
+    }
+
+    /**
+     * Advance the level by one fixed step
+     * @param delta the length of the step in seconds
+     * #changed:   Moved here from Level.update(). Level end and sounds are now reported to the Listener.
+     *             Nothing is allocated while a wave is in progress. The character loops are now engine systems
+     */
+    public void update(float delta) {
+        if (finished)
+            return;
+        tick++;
+        profile.begin();
+
+        input.update();
+
+        savePreviousPositions();
+        if (Degradation.PHYSICSITERATIONS.isIn(quality))
+            world.step(delta, Constant.DEGRADEDVELOCITYITERATIONS, Constant.DEGRADEDPOSITIONITERATIONS);
+        else
+            world.step(delta, Constant.VELOCITYITERATIONS, Constant.POSITIONITERATIONS);
+
+        player.update(delta);
+        if (input.getAim(aim))
+            player.look(aim);
+
+        // When you die, end the level.
+        if (player.health <= 0) {
+        	if (player.isZombie) {
+        	    finished = true;
+                listener.playerDied();
+        	} else {
+        		player.switchType();
+        		wakeAll();
+        		listener.playerInfected();
+        	}
+        }
+
+        profile.mark(StepProfile.Phase.PHYSICS);
+        rebuildSpatialIndex();
+        profile.mark(StepProfile.Phase.INDEX);
+        // Only searched again when the player has moved into another tile
+        playerFlowField.update(player);
+        profile.mark(StepProfile.Phase.FLOWFIELD);
+
+        if (toCure)
+            cureZombies();
+        toCure = false;
+
+        // AI, movement, attacks and deaths of every zombie and nonZombie. Targets are chosen in parallel
+        // for large hordes, everything after that which changes forces, health or the families runs on this thread
+        engine.update(delta);
+
+        // Zombies still waiting to spawn count towards the wave. Queued nonZombies were already added to survivors
+        zombiesToSpawn = spawnScheduler.getPendingZombies();
+        zombiesRemaining = zombies.size() + zombiesToSpawn;
+
+        if ((zombiesRemaining == 0 && !player.isZombie) || (survivors == 0 && player.isZombie)) {
+
+            // Spawn a power up and the end of a wave, if there isn't already a powerUp on the level
+            //#changed:   Added code for the new power ups here
+            if (currentPowerUp == null) {
+
+                switch(random.get(RandomStreams.Stream.POWERUP).nextInt(6) + 1) {
+                    case 1:
+                        currentPowerUp = new PowerUpHeal(this, player);
+                        break;
+                    case 2:
+                        currentPowerUp = new PowerUpSpeed(this, player);
+                        break;
+                    case 3:
+                        currentPowerUp = new PowerUpImmunity(this, player);
+                        break;
+                    case 4:
+                        currentPowerUp = new PowerUpInstaKill(this, player);
+                        break;
+                    case 5:
+                        currentPowerUp = new PowerUpInvisibility(this, player);
+                        break;
+                    case 6:
+                        currentPowerUp = new PowerUpCure(this, player);
+                        break;
+                }
+            }
+
+
+            if ((currentWaveNumber > config.waves.length) && zombiesRemaining == 0) {
+                // Level completed
+                finished = true;
+                listener.levelCompleted();
+            } else if ((currentWaveNumber > config.waves.length) && survivors == 0) {
+                // Level completed with no survivors
+                finished = true;
+                listener.levelOverrun();
+            }else {
+                if (currentWaveNumber < config.waves.length) {
+                    // Update zombiesRemaining with the number of zombies of the new wave
+                    zombiesRemaining = config.waves[currentWaveNumber].numberToSpawn;
+                    nonZombiesToSpawn = config.nonZombieWaves[currentWaveNumber].numberToSpawn;
+                    survivors += nonZombiesToSpawn;
+                } else
+                    zombiesRemaining = 0;
+
+
+                // Wave complete, increment wave number
+                currentWaveNumber++;
+                wakeAll();
+            }
+
+            zombiesToSpawn = zombiesRemaining;
+
+            // Changed by Shaun of the Devs to spawn nonZombies separately from Zombies
+            // Spawn all zombies in the stage
+            if (config.waves.length >= currentWaveNumber) {
+            	spawnZombies(zombiesToSpawn, config.zombieSpawnPoints, config.waves[currentWaveNumber-1].zombieType);
+            	spawnZombies(nonZombiesToSpawn, config.nonZombieSpawnPoints, config.nonZombieWaves[currentWaveNumber-1].zombieType);
+            }
+        }
+
+        spawnScheduler.update();
+        profile.mark(StepProfile.Phase.SPAWN);
+
+        //Teleporting and minon spawning behavior for boss2
+        teleportCounter++;
+        if (currentWaveNumber <= config.waves.length && config.waves[currentWaveNumber-1].zombieType == Zombie.Type.BOSS2 && teleportCounter > 100) {
+            teleportCounter = 0;
+            if (originalBoss != null && originalBoss.getHealth() < 250 && random.get(RandomStreams.Stream.BOSS).nextFloat() < 0.1) {
+                Zombie minion = zombiePool.obtain(new Vector2(200,200), Zombie.Type.BOSS2);
+                engine.addEntity(minion.entity);
+                insert(zombieGrid, minion);
+            }
+            for (int i = 0; i < zombies.size(); i++) {
+                Zombie boss = CharacterComponent.get(zombies.get(i));
+                // Characters spawned since the AI last ran have no target yet
+                if (boss.closestAttackable == null)
+                    continue;
+                Vector2 start = boss.getPhysicsPosition();
+                Vector2 end =  boss.closestAttackable.getPhysicsPosition();
+                teleportPosition.set((start.x + end.x)/2, (start.y + end.y)/2);
+                remove(zombieGrid, boss);
+                boss.setCharacterPosition(teleportPosition);
+                insert(zombieGrid, boss);
+            }
+        }
+
+        if (currentPowerUp != null) {
+            // Activate the powerup up if the player moves over it and it's not already active
+            if (!currentPowerUp.isActive() && currentPowerUp.overlapsPlayer())
+                currentPowerUp.activate();
+            currentPowerUp.update(delta);
+        }
+
+        if (hashing)
+            hashState();
+        profile.end();
+    }
+
+    /**
+     * Hash everything that can change during a step into stateHash
+     */
+    private void hashState() {
+        stateHash.reset();
+        stateHash.add(tick);
+        stateHash.add(currentWaveNumber);
+        stateHash.add(zombiesRemaining);
+        stateHash.add(zombiesToSpawn);
+        stateHash.add(survivors);
+        stateHash.add(finished);
+        random.addTo(stateHash);
+
+        player.addTo(stateHash);
+        stateHash.add(player.isZombie);
+        for (int i = 0; i < characters.size(); i++)
+            CharacterComponent.get(characters.get(i)).addTo(stateHash);
+
+        stateHash.add(currentPowerUp != null);
+        if (currentPowerUp != null) {
+            stateHash.add(currentPowerUp.getClass().getName().hashCode());
+            stateHash.add(currentPowerUp.isActive());
+            stateHash.add(currentPowerUp.getX());
+            stateHash.add(currentPowerUp.getY());
+        }
+    }
+
+    /**
+     * Turn hashing of the whole simulation state at the end of every step on or off
+     * @param hashing true to hash every step
+     */
+    public void setStateHashing(boolean hashing) {
+        this.hashing = hashing;
+    }
+
+    /**
+     * @return the hash of the simulation state at the end of the last step, if hashing is on
+     */
+    public long getStateHash() {
+        return stateHash.get();
+    }
+
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * Store where every character was before the physics step, for render interpolation
+     */
+    private void savePreviousPositions() {
+        player.savePreviousPosition();
+        for (int i = 0; i < characters.size(); i++)
+            CharacterComponent.get(characters.get(i)).savePreviousPosition();
+    }
+
+    /**
+     * Called by CombatSystem when the player hits a character
+     */
+    void zombieHit() {
+        listener.zombieHit();
+    }
+
+    /**
+     * Called by DeathSystem when a zombie has been killed, returns it to the pool
+     * @param zombie the killed zombie
+     */
+    void zombieKilled(Zombie zombie) {
+        remove(zombieGrid, zombie);
+        engine.removeEntity(zombie.entity);
+        zombiePool.free(zombie);
+    }
+
+    /**
+     * Called by DeathSystem when a nonZombie has been killed, turning it into a zombie
+     * @param nonZombie the killed nonZombie
+     */
+    void nonZombieInfected(Zombie nonZombie) {
+        nonZombie.health = nonZombie.maxhealth;
+        nonZombie.switchType();
+        survivors--;
+        remove(nonZombieGrid, nonZombie);
+        insert(zombieGrid, nonZombie);
+    }
+
+    /**
+     * Dispose of the simulation, clearing the memory
+     * #changed:   Moved the Box2D clean up here from Level, pooled zombies and nonZombies are now disposed too,
+     *             and every entity is removed from the engine. Releases the power up image
+     */
+    public void dispose() {
+        for (int i = 0; i < characters.size(); i++)
+            CharacterComponent.get(characters.get(i)).dispose();
+        engine.removeAllEntities();
+        spawnScheduler.clear();
+        zombiePool.dispose();
+        player.dispose();
+        setCurrentPowerUp(null);
+
+        Array<Body> bodies = new Array<>();
+        world.getBodies(bodies);
+        for(Body body : bodies)
+        	world.destroyBody(body);
+        world.dispose();
+    }
+}
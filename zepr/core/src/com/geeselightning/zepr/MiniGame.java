@@ -3,6 +3,7 @@ package com.geeselightning.zepr;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.Cursor;
 import com.badlogic.gdx.graphics.Cursor.SystemCursor;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Pixmap;
@@ -10,14 +11,9 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.scenes.scene2d.Actor;
-import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
-import com.badlogic.gdx.scenes.scene2d.ui.Table;
-import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
-import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.Queue;
-import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.geeselightning.zepr.screens.TextScreen;
 
 /**
@@ -28,27 +24,26 @@ public class MiniGame implements Screen {
 	
 	private Zepr parent;
 	
-	private Stage stage;
-	private Stage pause;
-	private Table table;
-	private boolean isPaused;
-	private boolean pauseButton = false;
+	private PauseOverlay pauseOverlay; // built once, shown while the game is paused
 	private Skin skin = new Skin(Gdx.files.internal("skin/pixthulhu-ui.json"));
 	private SpriteBatch spriteBatch;
-	private String zombieTexture = "MiniZombie.png";
+	private MiniZombiePool zombiePool; // shot zombies go back here to be spawned again
 	private Sprite background;
 	private Sprite crosshair;
 	static long timer = 0;
 	private long last = 0;
 	private  Queue<MiniZombie> ZombieQueue = new Queue<>();
-	private MiniZombie tempZombie;
+	private final OcclusionSweep occlusion = new OcclusionSweep(); // what can be seen, and shot, of each zombie
 	private BitmapFont font;
 	private static String gunStatus = "Reloaded";
 	static long trigger = 0;
 	private boolean reloaded = false;
 	private int kills = 0;
 	private float rand = 0;
+	// A new seed each time so no two games are the same
+	private final RandomXS128 random = new RandomStreams(System.nanoTime()).get(RandomStreams.Stream.MINIGAME);
 	private Pixmap pm = new Pixmap(Gdx.files.internal("blank.png"));
+	private Cursor hiddenCursor = Gdx.graphics.newCursor(pm, 0, 0); // made once, shown whenever the game is played
 	
 	private static boolean death = false;
 
@@ -58,25 +53,35 @@ public class MiniGame implements Screen {
 		Gdx.graphics.setWindowedMode(1280, 720);
 		
 		parent = zepr;
-		this.isPaused = false;
-		
-		this.stage = new Stage(new ScreenViewport());
-		this.pause = new Stage(new ScreenViewport());
 		
 		background = new Sprite(new Texture("MiniGameLevel.png"));
 		crosshair = new Sprite(new Texture("Crosshair.png"));
 		crosshair.setScale(2);
 		
-		// Create a table that fills the screen. Everything else will go inside this table.
-        table = new Table();
-        table.setFillParent(true);
-        // table.setDebug(true); // Adds borders for the table.
-        
         spriteBatch = new SpriteBatch();
         font = new BitmapFont();
+        zombiePool = new MiniZombiePool("MiniZombie.png", random);
        
-		Gdx.graphics.setCursor(Gdx.graphics.newCursor(pm, 0, 0));
+		// The game only polls Gdx.input, so no input processor is needed while the menu is hidden
+		pauseOverlay = new PauseOverlay(skin, new PauseOverlay.Listener() {
+			@Override
+			public void resumed() {
+				Gdx.graphics.setCursor(hiddenCursor);
+				pauseOverlay.hide();
+			}
+
+			@Override
+			public void exited() {
+				Gdx.graphics.setWindowedMode(1366, 768);
+				parent.changeScreen(Zepr.Location.SELECT);
+			}
+		}, null);
+		
+		Gdx.graphics.setCursor(hiddenCursor);
         death = false;
+        MiniZombie.resetClock();
+        timer = 0;
+        trigger = 0;
 	}
 	
 	/**
@@ -90,12 +95,12 @@ public class MiniGame implements Screen {
 		
 		if(timer > last+rand) {
 			// Changed by Shaun of the Devs to increas difficulty over time
-			rand = Math.round(Math.random()*(kills/10));
+			rand = Math.round(random.nextDouble()*(kills/10));
 			
 			for(int z = 0; z <= rand; z++) {
-				ZombieQueue.addFirst(new MiniZombie(zombieTexture));
+				ZombieQueue.addFirst(zombiePool.obtain());
 			}
-			rand = Math.round((Math.random()*0.5));
+			rand = Math.round((random.nextDouble()*0.5));
 			last = timer;
 		}
 	}
@@ -125,34 +130,28 @@ public class MiniGame implements Screen {
 	}
 	
 	/**
-	 * @param zombie1 zombie that is either visible or not
-	 * @param minIndex
-	 * 
-	 * Determines whether the zombie is visible or occluded by other zombies.
-	 * If partially occluded, method changes visible with of zombie so that occluded
-	 * areas cannot be fired at.
+	 * @param mouseX x of the mouse on the screen
+	 * @param mouseY y of the mouse on the screen, measured up from the bottom
+	 * @return the index in ZombieQueue of the zombie a shot at the mouse hits, or -1 for a miss
+	 * #changed:   Replaces isVisible(), which compared every zombie with every zombie in front of it.
+	 *             The part of each zombie that can be seen is now found by one sweep, and the shot is
+	 *             given to the frontmost zombie seen under the mouse
 	 */
-    private void isVisible(MiniZombie zombie1, int minIndex) {
+    private int pickZombie(float mouseX, float mouseY) {
 		
-		Sprite zombie1_s = zombie1.zombie;
-		float zombie1X = zombie1_s.getX();
-		float zombie1Width = zombie1_s.getWidth();
+		occlusion.clear();
+		// Zombies later in the queue are drawn over earlier ones
+		for(int i = 0; i < ZombieQueue.size; i++) {
+			Sprite zombie = ZombieQueue.get(i).zombie;
+			occlusion.add(zombie.getX(), zombie.getX()+zombie.getWidth());
+		}
+		occlusion.sweep();
 		
-		for(int j = minIndex+1; j < ZombieQueue.size; j++) {
-			
-			MiniZombie zombie2 = ZombieQueue.get(j);
-			
-			Sprite zombie2_s = zombie2.zombie;
-			float zombie2X = zombie2_s.getX();
-			float zombie2Width = zombie2_s.getWidth();
-		 
-			if((zombie2X>zombie1X) && (zombie2X<(zombie1X+zombie1Width))) {			
-				zombie1.setVisibleWidth(zombie2X-zombie1X);			
-			}	
-			else if((zombie1X>zombie2X) && (zombie1X<(zombie2X+zombie2Width))) {	
-				zombie1.setVisibleX(zombie2X+zombie2Width);			
-			}
+		int hit = occlusion.pick(mouseX);
+		if(hit != -1 && !ZombieQueue.get(hit).isLevelWith(mouseY)) {
+			return -1;
 		}
+		return hit;
 	}
 	
 
@@ -168,76 +167,37 @@ public class MiniGame implements Screen {
 			parent.setScreen(new TextScreen(parent, "Kills: "+kills+"\nMINIGAME OVER"));
 			Gdx.graphics.setWindowedMode(1366, 768);
 			Gdx.graphics.setSystemCursor(SystemCursor.Arrow);
-			ZombieQueue.clear();
+			// hide() has returned the zombies to the pool and freed their texture and font
+			return;
 		}
 		
 		// Pause Menu
+		// #changed:   The menu is built once, Escape toggles it once for each press and nothing else is drawn
+		//             while it is shown
 		
-		if (Gdx.input.isKeyPressed(Input.Keys.ESCAPE) || isPaused) {
-			
-			Gdx.graphics.setSystemCursor(SystemCursor.Arrow);
-				
-			isPaused = true;
-			
-            // Clears the screen to black.
-            Gdx.gl.glClearColor(0f, 0f, 0f, 1);
-            Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-            
-            TextButton exit = new TextButton("Exit", skin);
-            TextButton resume = new TextButton("Resume", skin);
-            
-            if (!pauseButton) {
-                      	 
-                table.clear();
-                
-                stage.addActor(table);
-                table.center();
-                table.add(resume).pad(10);
-                table.row();
-                table.add(exit);
-                pauseButton = true;
-            }
-           
-            // Input processor has to be changed back once unpaused.
-            Gdx.input.setInputProcessor(stage);
-            
-            // Defining actions for the resume button.
-            resume.addListener(new ChangeListener() {
-                @Override
-                public void changed(ChangeEvent event, Actor actor) {
-                	Gdx.graphics.setCursor(Gdx.graphics.newCursor(pm, 0, 0));
-                    isPaused = false;
-                    // Change input processor back
-                    Gdx.input.setInputProcessor(stage);
-                    pauseButton = false;
-                }
-            });
-
-            // Defining actions for the exit button.
-            exit.addListener(new ChangeListener() {
-                @Override
-                public void changed(ChangeEvent event, Actor actor) {
-                	Gdx.graphics.setWindowedMode(1366, 768);
-                    parent.changeScreen(Zepr.Location.SELECT);
-                }
-            });
-            
-            stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f));
-            stage.draw();
+		if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+			if (pauseOverlay.isShown()) {
+				Gdx.graphics.setCursor(hiddenCursor);
+				pauseOverlay.hide();
+			} else {
+				Gdx.graphics.setSystemCursor(SystemCursor.Arrow);
+				pauseOverlay.show();
+			}
+		}
+		
+        // Clears the screen to black.
+        Gdx.gl.glClearColor(0f, 0f, 0f, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		
+		if (pauseOverlay.isShown()) {
+            pauseOverlay.render(delta);
         } else {
-            // Clears the screen to black.
-            Gdx.gl.glClearColor(0f, 0f, 0f, 1);
-            Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-            
-            table.clear();
-            
-            stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f));
-            stage.draw();
-            
             // 1) Generate Zombies incrementally
             // 2) Get the Reload status of gun
             // 3) Draw the gun status 
             
+            // The clock only runs while the game is not paused
+            MiniZombie.advanceClock(delta);
             gunStatus();
                    
             spriteBatch.begin();
@@ -246,25 +206,25 @@ public class MiniGame implements Screen {
           
             this.generateZombie();
                     
-            // Draws zombies onto stage in order of depth
-            
-            for(int i = 0; i < ZombieQueue.size; i++) {          	  	        	
-            	tempZombie = ZombieQueue.get(i);         	
-            	isVisible(tempZombie, i);     	
-            	if(tempZombie.getDamage() && reloaded) {   		
+            // The mouse is read once a frame. Only a shot needs to know what can be seen of each zombie
+            float mouseX = Gdx.input.getX();
+            float mouseY = -(Gdx.input.getY()-720);
+            // Added by Shaun of the Devs to allow the player to miss the zombie
+            if(Gdx.input.isButtonPressed(Input.Buttons.LEFT) && reloaded) {
+            	trigger = timer;
+            	int hit = pickZombie(mouseX, mouseY);
+            	if(hit != -1) {
             		kills++;
-            		trigger = timer;
-            		ZombieQueue.removeIndex(i);
-            	// Added by Shaun of the Devs to allow the player to miss the zombie
-            	} else if(Gdx.input.isButtonPressed(Input.Buttons.LEFT) && reloaded) {
-            		trigger = timer;
-            		tempZombie.render(spriteBatch);
-            	} else {  		
-            		tempZombie.render(spriteBatch);
-            	}      	
-            }	
+            		zombiePool.free(ZombieQueue.removeIndex(hit));
+            	}
+            }
             
-            crosshair.setPosition((float)(Gdx.input.getX()-(0.5*crosshair.getWidth())), -(float) ((Gdx.input.getY()+0.5*crosshair.getHeight())-720));
+            // Draws zombies onto stage in order of depth
+            for(int i = 0; i < ZombieQueue.size; i++) {
+            	ZombieQueue.get(i).render(spriteBatch);
+            }
+            
+            crosshair.setPosition((float)(mouseX-(0.5*crosshair.getWidth())), (float)(mouseY-(0.5*crosshair.getHeight())));
             crosshair.draw(spriteBatch);
             spriteBatch.end();
         }
@@ -272,8 +232,7 @@ public class MiniGame implements Screen {
 
 	@Override
 	public void resize(int width, int height) {
-		// TODO Auto-generated method stub
-		
+		pauseOverlay.resize(width, height);
 	}
 
 	@Override
@@ -288,15 +247,32 @@ public class MiniGame implements Screen {
 		
 	}
 
+	/**
+	 * Return every zombie still in play to the pool
+	 */
+	private void freeZombies() {
+		while (ZombieQueue.size > 0)
+			zombiePool.free(ZombieQueue.removeFirst());
+	}
+
+	/**
+	 * #changed:   Frees the zombies' shared texture and font and the pause menu once the mini game is left
+	 */
 	@Override
 	public void hide() {
-		// TODO Auto-generated method stub
-		
+		dispose();
 	}
 
 	@Override
 	public void dispose() {
-		// TODO Auto-generated method stub
-		
+		if (zombiePool == null)
+			return;
+		freeZombies();
+		Gdx.app.log("MiniGame", "Zombies allocated: " + zombiePool.getAllocated() + ", pooled: " + zombiePool.getFree());
+		zombiePool.dispose();
+		zombiePool = null;
+		pauseOverlay.dispose();
+		hiddenCursor.dispose();
+		pm.dispose();
 	}
 }
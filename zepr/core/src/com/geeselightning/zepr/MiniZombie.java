@@ -3,16 +3,17 @@ package com.geeselightning.zepr;
 import java.util.concurrent.ThreadLocalRandom;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.RandomXS128;
 
-//#changed:   Added this class
+//#changed:   Added this class. Zombies are now created and reused by MiniZombiePool, sharing its texture and font
 public class MiniZombie {
 	
 	private static long timer;
+	private static float clock; // Seconds the mini game has been played for, advanced by MiniGame
 	private long last;
 	private long collisionTimer;
 	Sprite zombie;
@@ -26,22 +27,26 @@ public class MiniZombie {
 	private float zombieX;
 	private float zombieY;
 	private int spawnX;
-	private int mouseX;
-	private int mouseY;
 	private float initialHeight;
 	private float initialWidth;
-	private BitmapFont font;
+	private final BitmapFont font; // shared by every zombie, owned by the pool
 	private int distance = 30;
 	private double rand;
+	private final RandomXS128 random;
 	
-	MiniZombie(String texture) {
+	/**
+	 * Constructor for the zombie, only called by MiniZombiePool. The zombie is placed by spawn()
+	 * @param region the zombie image, shared by every zombie
+	 * @param font the font the distance is drawn in, shared by every zombie
+	 * @param random the generator used to place and steer the zombie
+	 */
+	MiniZombie(TextureRegion region, BitmapFont font, RandomXS128 random) {
 		
-	
-		zombie = new Sprite(new Texture(texture));
-		font = new BitmapFont();
+		this.random = random;
+		this.font = font;
+		zombie = new Sprite(region);
 		initialHeight = zombie.getHeight();
 		initialWidth = zombie.getWidth();
-		this.spawn();		
 	}
 		
 	/**
@@ -66,7 +71,7 @@ public class MiniZombie {
 			last = timer;
 			distance -= 2;
 			if(!collision) {
-				direction = Math.random();
+				direction = random.nextDouble();
 			}
 			last = timer;	
 			
@@ -113,46 +118,28 @@ public class MiniZombie {
 	
 	
 	/**
-	 * @param width
-	 * 
-	 * Sets the width of the zombie sprite: called in MiniGame
-	 */
-	void setVisibleWidth(float width) {
-		this.zombieWidth = width;
-	}
-	
-	/**
-	 * @param x
-	 * 
-	 * Sets the x value of the zombie sprite: called in MiniGame
+	 * @param pointY the height of a point on the screen
+	 * @return true if the point is level with the zombie as it was last drawn, the side it is seen along
+	 *         is found by OcclusionSweep
+	 * #changed:   Replaces getDamage(), the mouse is now read once a frame by MiniGame
 	 */
-	void setVisibleX(float x) {
-		this.zombieX = x;
-	}
-	
-	/**
-	 * @return
-	 * 
-	 * Returns true if zombie has been successfully hit.
-	 */
-	boolean getDamage() {
-		
-		mouseX = Gdx.input.getX();
-		mouseY = -(Gdx.input.getY()-720);
-	
-		if(Gdx.input.isButtonPressed(Input.Buttons.LEFT)) {
-			return aimingAt();
-		} else {
-			return false;
-		}		
+	boolean isLevelWith(float pointY) {
+		return pointY <= y+(zombie.getHeight()) && pointY >= zombie.getY();
 	}
 	
 	/**
 	 * Randomises the spawn location of the zombie to one of three gates in the stage
+	 * #changed:   Also resets everything a zombie taken from the pool kept from its last life
 	 */
 	public void spawn() {
 		
-		rand = Math.random();
+		distance = 30;
+		direction = 10;
+		inc = 0;
+		collision = false;
+		collisionTimer = 0;
+		
+		rand = random.nextDouble();
 		
 		if(rand < 0.3){
 			spawnX = 230;
@@ -181,26 +168,32 @@ public class MiniZombie {
        
 	}
 	
-	/**
-	 * @return
-	 * 
-	 * Determines whether the player is aiming at zombie sprite with mouse
-	 */
-	private boolean aimingAt() {
-		return (mouseX >= zombieX && mouseX <= zombieX+(zombieWidth) &&
-                mouseY <= y+(zombieHeight) && mouseY >= zombieY);
-	}
-	
-	
 	/**
 	 * @return
 	 * 
 	 * returns timer value from start of game
+	 * #changed:   Counts the time the game has been played for instead of wall time
 	 */
 	static long timer() {
-		timer = System.nanoTime()/1000000000;		
+		timer = (long) clock;
 		return timer;
 	}
+
+	/**
+	 * Advance the mini game clock
+	 * @param delta the time since the last frame in seconds
+	 */
+	static void advanceClock(float delta) {
+		clock += delta;
+	}
+
+	/**
+	 * Start the mini game clock again from zero
+	 */
+	static void resetClock() {
+		clock = 0;
+		timer = 0;
+	}
 	
 }
 
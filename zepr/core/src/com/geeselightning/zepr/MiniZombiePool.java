@@ -0,0 +1,75 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Keeps the mini game's zombies once they are shot so they can come through the gates again, and holds the
+ * one texture and font they all draw with. The mini game spawns zombies faster the more are killed, so without
+ * the pool a long game would keep creating them.
+ * #changed:   Added this class
+ */
+public class MiniZombiePool extends Pool<MiniZombie> {
+
+    private final Texture texture;
+    private final TextureRegion region;
+    private final BitmapFont font;
+    private final RandomXS128 random;
+    private int allocated; // zombies created, in play or waiting in the pool
+
+    /**
+     * Constructor for the pool, loads the shared texture and font until dispose()
+     * @param texture the file name of the zombie image
+     * @param random the generator used to place and steer the zombies
+     */
+    public MiniZombiePool(String texture, RandomXS128 random) {
+        super(16);
+        this.texture = new Texture(texture);
+        this.region = new TextureRegion(this.texture);
+        this.font = new BitmapFont();
+        this.random = random;
+    }
+
+    @Override
+    protected MiniZombie newObject() {
+        allocated++;
+        return new MiniZombie(region, font, random);
+    }
+
+    /**
+     * Get a zombie from the pool, or a new one if the pool is empty, and spawn it at one of the gates
+     * @return the spawned zombie
+     */
+    @Override
+    public MiniZombie obtain() {
+        MiniZombie zombie = super.obtain();
+        zombie.spawn();
+        return zombie;
+    }
+
+    /**
+     * @return the number of zombies created, in play or waiting in the pool
+     */
+    public int getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * @return the number of zombies in play
+     */
+    public int getInUse() {
+        return allocated - getFree();
+    }
+
+    /**
+     * Dispose of the shared texture and font, the zombies can no longer be drawn
+     */
+    public void dispose() {
+        clear();
+        texture.dispose();
+        font.dispose();
+    }
+}
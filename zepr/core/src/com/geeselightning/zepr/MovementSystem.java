@@ -0,0 +1,29 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.systems.IteratingSystem;
+
+/**
+ * Applies each character's steering to its Box2D body and updates its sprite.
+ * #changed:   Added this class, moving the update calls from the level loops
+ */
+class MovementSystem extends IteratingSystem {
+
+    private final StepProfile profile;
+
+    MovementSystem(StepProfile profile, int priority) {
+        super(LevelSimulation.CHARACTERS, priority);
+        this.profile = profile;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        profile.mark(StepProfile.Phase.MOVEMENT);
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float deltaTime) {
+        CharacterComponent.get(entity).update(deltaTime);
+    }
+}
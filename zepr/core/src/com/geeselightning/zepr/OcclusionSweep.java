@@ -0,0 +1,180 @@
+package com.geeselightning.zepr;
+
+import java.util.Arrays;
+
+/**
+ * Works out which parts of a row of overlapping sprites can be seen, and so shot, when later sprites are drawn
+ * over earlier ones. Each sprite covers an interval of x. Their ends are sorted once and swept left to right
+ * keeping the covering sprites in a heap by depth, so every stretch of x between two ends is owned by the
+ * frontmost sprite covering it. Building the stretches is O(n log n) and finding the sprite at a point is a
+ * binary search, rather than comparing every sprite with every other.
+ * Nothing is allocated once the arrays have grown to the largest row.
+ * #changed:   Added this class
+ */
+public class OcclusionSweep {
+
+    private float[] lefts = new float[16];
+    private float[] rights = new float[16];
+    private int count;
+    private long[] ends = new long[32]; // sortable x of each end in the high bits, sprite and side in the low bits
+    private int[] heap = new int[16]; // sprites covering the sweep position, frontmost on top
+    private int heapSize;
+    private boolean[] covering = new boolean[16]; // sprites the sweep is inside, those in the heap may have ended
+    // Stretches of x between consecutive ends and the sprite seen there, -1 where there is none
+    private float[] stretchStarts = new float[32];
+    private int[] owners = new int[32];
+    private int stretches;
+    private float lastEnd;
+
+    /**
+     * Start a new row, forgetting every sprite added before
+     */
+    public void clear() {
+        count = 0;
+        stretches = 0;
+    }
+
+    /**
+     * Add a sprite in front of every sprite added since clear()
+     * @param left the left edge of the sprite
+     * @param right the right edge of the sprite
+     * @return the index of the sprite, its depth from the back
+     */
+    public int add(float left, float right) {
+        if (count == lefts.length) {
+            lefts = Arrays.copyOf(lefts, count * 2);
+            rights = Arrays.copyOf(rights, count * 2);
+            heap = new int[count * 2];
+            covering = new boolean[count * 2];
+            ends = new long[count * 4];
+            stretchStarts = new float[count * 4];
+            owners = new int[count * 4];
+        }
+        lefts[count] = left;
+        rights[count] = right;
+        return count++;
+    }
+
+    /**
+     * Work out which sprite is seen along each stretch of the row, call after adding the row
+     */
+    public void sweep() {
+        stretches = 0;
+        if (count == 0)
+            return;
+        for (int i = 0; i < count; i++) {
+            ends[2 * i] = end(lefts[i], i, false);
+            ends[2 * i + 1] = end(rights[i], i, true);
+            covering[i] = false;
+        }
+        Arrays.sort(ends, 0, 2 * count);
+
+        heapSize = 0;
+        for (int e = 0; e < 2 * count; ) {
+            float x = xOf(ends[e]);
+            // Every end at this x is applied before the stretch starting here is given its owner
+            while (e < 2 * count && xOf(ends[e]) == x) {
+                int sprite = (int) (ends[e] >> 1) & 0x7FFFFFFF;
+                if ((ends[e] & 1) == 0) {
+                    covering[sprite] = true;
+                    push(sprite);
+                } else {
+                    // Left in the heap and dropped once it reaches the top
+                    covering[sprite] = false;
+                }
+                e++;
+            }
+            while (heapSize > 0 && !covering[heap[0]])
+                pop();
+            int owner = heapSize > 0 ? heap[0] : -1;
+            // Neighbouring stretches with the same owner are one visible interval
+            if (stretches == 0 || owners[stretches - 1] != owner) {
+                stretchStarts[stretches] = x;
+                owners[stretches] = owner;
+                stretches++;
+            }
+            lastEnd = x;
+        }
+    }
+
+    /**
+     * Find the sprite seen at a point of the row, front to back
+     * @param x the point
+     * @return the index of the frontmost sprite covering the point, or -1 if there is none
+     */
+    public int pick(float x) {
+        if (stretches == 0 || x < stretchStarts[0] || x > lastEnd)
+            return -1;
+        // The last stretch starting at or before x
+        int low = 0;
+        int high = stretches - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (stretchStarts[middle] <= x)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        // A point on the right edge of the last sprite still hits it, as it did before the sweep
+        if (x == lastEnd && owners[low] == -1 && low > 0)
+            return owners[low - 1];
+        return owners[low];
+    }
+
+    /**
+     * @param sprite the index of a sprite
+     * @return the total width of the sprite that can be seen
+     */
+    public float getVisibleWidth(int sprite) {
+        float width = 0;
+        for (int i = 0; i < stretches; i++)
+            if (owners[i] == sprite)
+                width += (i + 1 < stretches ? stretchStarts[i + 1] : lastEnd) - stretchStarts[i];
+        return width;
+    }
+
+    /**
+     * Pack an end so sorting the packed values sorts the ends by x
+     */
+    private static long end(float x, int sprite, boolean right) {
+        int bits = Float.floatToIntBits(x);
+        // Flip negative floats so their bits order the same way as their values
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+        return ((long) bits << 32) | ((long) sprite << 1) | (right ? 1 : 0);
+    }
+
+    private static float xOf(long end) {
+        int bits = (int) (end >> 32);
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+        return Float.intBitsToFloat(bits);
+    }
+
+    private void push(int sprite) {
+        int i = heapSize++;
+        heap[i] = sprite;
+        while (i > 0 && heap[(i - 1) / 2] < heap[i]) {
+            int parent = (i - 1) / 2;
+            heap[i] = heap[parent];
+            heap[parent] = sprite;
+            i = parent;
+        }
+    }
+
+    private void pop() {
+        int last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && heap[child + 1] > heap[child])
+                child++;
+            if (heap[child] <= last)
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0)
+            heap[i] = last;
+    }
+}
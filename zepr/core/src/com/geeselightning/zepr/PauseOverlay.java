@@ -0,0 +1,130 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
+import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
+
+/**
+ * The pause menu of a game screen, with resume and exit buttons. The menu is built once with the screen and
+ * only shown and hidden after that, so pausing creates no actors or listeners. Input is passed to the menu
+ * when it is shown and back to the game when it is hidden. While it is shown the window is only redrawn when
+ * there is input, as nothing else on a paused screen changes.
+ * #changed:   Added this class, replacing the pause menu code of Level and MiniGame
+ */
+public class PauseOverlay {
+
+    /**
+     * Told when a button of the menu is pressed
+     */
+    public interface Listener {
+        /**
+         * The resume button was pressed, the screen should carry on and hide the menu
+         */
+        void resumed();
+
+        /**
+         * The exit button was pressed, the screen should be left
+         */
+        void exited();
+    }
+
+    private final Stage stage;
+    private final InputProcessor gameInput;
+    private boolean shown;
+
+    /**
+     * Constructor for the menu, which starts hidden
+     * @param skin the skin of the buttons
+     * @param listener told when a button is pressed
+     * @param gameInput where input goes while the menu is hidden, null if the game only polls Gdx.input
+     */
+    public PauseOverlay(Skin skin, final Listener listener, InputProcessor gameInput) {
+        this.gameInput = gameInput;
+        stage = new Stage(new ScreenViewport());
+
+        Table table = new Table();
+        table.setFillParent(true);
+        table.center();
+        stage.addActor(table);
+
+        TextButton resume = new TextButton("Resume", skin);
+        TextButton exit = new TextButton("Exit", skin);
+        table.add(resume).pad(10);
+        table.row();
+        table.add(exit);
+
+        resume.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                listener.resumed();
+            }
+        });
+        exit.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                // The next screen takes the input, only the redrawing is put back
+                close();
+                listener.exited();
+            }
+        });
+    }
+
+    /**
+     * Show the menu and send input to it, does nothing if it is already shown
+     */
+    public void show() {
+        if (shown)
+            return;
+        shown = true;
+        Gdx.input.setInputProcessor(stage);
+        Gdx.graphics.setContinuousRendering(false);
+        Gdx.graphics.requestRendering();
+    }
+
+    /**
+     * Hide the menu and send input back to the game, does nothing if it is already hidden
+     */
+    public void hide() {
+        if (!shown)
+            return;
+        close();
+        Gdx.input.setInputProcessor(gameInput);
+    }
+
+    private void close() {
+        shown = false;
+        Gdx.graphics.setContinuousRendering(true);
+    }
+
+    public boolean isShown() {
+        return shown;
+    }
+
+    /**
+     * Update and draw the menu
+     * @param delta the time since the menu was last drawn
+     */
+    public void render(float delta) {
+        stage.act(Math.min(delta, 1 / 30f));
+        stage.draw();
+    }
+
+    /**
+     * Keep the menu in the middle of the window
+     * @param width the new window width
+     * @param height the new window height
+     */
+    public void resize(int width, int height) {
+        stage.getViewport().update(width, height, true);
+    }
+
+    public void dispose() {
+        stage.dispose();
+    }
+}
@@ -1,9 +1,8 @@
 package com.geeselightning.zepr;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
-import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
@@ -12,8 +11,6 @@ public class Player extends Character {
 
     //#changed:   Removed Player instance attribute from here
     private int boostDamage;
-    private Texture mainTexture;
-    private Texture attackTexture;
     private boolean attackReady = false;
     private float HPMult;
     private static PlayerType playertype;
@@ -25,7 +22,11 @@ public class Player extends Character {
     boolean abilityUsed = false;
     public boolean isZombie = false; // Added to check if player is a zombie
     private long abilityCooldown;
+    private float clock = 0; // Seconds of simulation time the player has been updated for
     String abilityString;
+    private PlayerInput input = PlayerInput.IDLE;
+    private boolean attackPressed = false;
+    private final Vector2 impulse = new Vector2(); // Reused by control() for each impulse applied
 
     //#changed:   Added this enum
     public enum PlayerType { SPORTY, NERDY, ARTSY, ZOMBIE1, ZOMBIE2, ZOMBIE3 }
@@ -38,9 +39,20 @@ public class Player extends Character {
      * #changed:   Added Box2D body code and texture attribute for player types
      */
     public Player(Texture texture, Vector2 playerSpawn, World world) {
+        this(new TextureRegion(texture), playerSpawn, world);
+    }
+
+    /**
+     * Constructor for the player class
+     * @param region the image to use for the player, only its size is kept once the type is applied
+     * @param playerSpawn coordinates to spawn the player at
+     * @param world the Box2D world to spawn the player in
+     * #changed:   Added this constructor so the player can start from a shared Sprites image
+     */
+    public Player(TextureRegion region, Vector2 playerSpawn, World world) {
         super(world);
     	
-        set(new Sprite(texture));
+        set(new Sprite(region));
 
         body.setFixedRotation(true);
         body.setLinearDamping(50.f);
@@ -57,10 +69,18 @@ public class Player extends Character {
         Player.playertype = playerType;
     }
 
+    /**
+     * @return the player type chosen for the next level
+     */
+    public static PlayerType getType() {
+        return playertype;
+    }
+
     /**
      * Update the attributes based on the player type
      * Call this after changing the player type attribute
-     * #changed:   Added this method to assign attributes based on player type
+     * #changed:   Added this method to assign attributes based on player type.
+     *             The images are acquired from the shared Sprites cache, so changing type loads nothing
      */
     public void refreshAttributes() {
         float dmgMult, speedMult;
@@ -68,23 +88,20 @@ public class Player extends Character {
             dmgMult = Constant.NERDYDMGMULT;
             HPMult = Constant.NERDYHPMULT;
             speedMult = Constant.NERDYSPEEDMULT;
-            mainTexture = new Texture("player01.png");
-            attackTexture = new Texture("player01_attack.png");
+            setImages("player01", "player01_attack");
             isZombie = false;
         } else if (playertype == PlayerType.SPORTY) {
             dmgMult = Constant.SPORTYDMGMULT;
             HPMult = Constant.SPORTYHPMULT;
             speedMult = Constant.SPORTYSPEEDMULT;
-            mainTexture = new Texture("player02.png");
-            attackTexture = new Texture("player02_attack.png");
+            setImages("player02", "player02_attack");
             isZombie = false;
         } else if (playertype == PlayerType.ARTSY) {
             //ARTSY player
             dmgMult = Constant.ARTSYDMGMULT;
             HPMult = Constant.ARTSYHPMULT;
             speedMult = Constant.ARTSYSPEEDMULT;
-            mainTexture = new Texture("player03.png");
-            attackTexture = new Texture("player03_attack.png");
+            setImages("player03", "player03_attack");
             isZombie = false;
         } 
         // Added by Shaun of the Devs to allow player to become a zombie
@@ -92,26 +109,23 @@ public class Player extends Character {
             dmgMult = Constant.NERDYDMGMULT;
             HPMult = Constant.NERDYHPMULT;
             speedMult = Constant.NERDYSPEEDMULT;
-            mainTexture = new Texture("zombie01.png");
-            attackTexture = new Texture("zombie01_attack.png");
+            setImages("zombie01", "zombie01_attack");
             isZombie = true;
         } else if (playertype == PlayerType.ZOMBIE2) {
             dmgMult = Constant.SPORTYDMGMULT;
             HPMult = Constant.SPORTYHPMULT;
             speedMult = Constant.SPORTYSPEEDMULT;
-            mainTexture = new Texture("zombie02.png");
-            attackTexture = new Texture("zombie02_attack.png");
+            setImages("zombie02", "zombie02_attack");
             isZombie = true;
         } else {
             dmgMult = Constant.ARTSYDMGMULT;
             HPMult = Constant.ARTSYHPMULT;
             speedMult = Constant.ARTSYSPEEDMULT;
-            mainTexture = new Texture("zombie03.png");
-            attackTexture = new Texture("zombie03_attack.png");
+            setImages("zombie03", "zombie03_attack");
             isZombie = true;
         }
 
-        setTexture(mainTexture);
+        setRegion(normalRegion);
         
         if(ability) {
         	health = maxhealth = (int) (HPMult * 100);
@@ -162,19 +176,21 @@ public class Player extends Character {
      * Routine to perform an attack move, damaging nearby enemies
      * @param zombie the zombie to test for promiximity and to damage
      * @param delta the time between the start of the previous call and now
-     * #changed:   Implemented attack cooldown system so player can't hit continually, and sound
+     * @return true if the zombie was hit
+     * #changed:   Implemented attack cooldown system so player can't hit continually.
+     *             The hit sound is now played by the Level so the attack works without audio
      */
-    public void attack(Zombie zombie, float delta) {
+    public boolean attack(Zombie zombie, float delta) {
 
         if (canHitGlobal(zombie, Constant.PLAYERRANGE) && hitRefresh > Constant.PLAYERHITCOOLDOWN 
         		&& attacking) {
             zombie.takeDamage(attackDamage*boostDamage);
-            Sound sound = Zepr.manager.get("zombie_take_dmg.wav", Sound.class);
-            sound.play(0.2f);
             hitRefresh = 0;
+            return true;
         } else
             hitRefresh += delta;
-        }
+        return false;
+    }
     
     
     /**
@@ -183,7 +199,7 @@ public class Player extends Character {
      */
     private void triggerAbility() {
     	
-		if(Gdx.input.isKeyPressed(Keys.E)) {
+		if(input.isKeyPressed(Keys.E)) {
 			ability = false;
 			abilityUsed = true;
 			abilityCooldown = this.timer();
@@ -207,10 +223,10 @@ public class Player extends Character {
     /**
      * Returns the value of time since beginning of stage
      * @return the value of time since beginning of stage
-     * #changed:   Added this method
+     * #changed:   Added this method. Counts simulation time instead of wall time so runs repeat exactly
      */
     private long timer() {
-		return System.nanoTime()/1000000000;
+		return (long) clock;
 	}
 
     /**
@@ -243,8 +259,17 @@ public class Player extends Character {
     @Override
     public void update(float delta) {
         super.update(delta);
+        clock += delta;
         
         control();
+
+        // Attack when the button goes down, and reset the attack animation when it is released
+        if (input.isAttackPressed() != attackPressed) {
+            attackPressed = input.isAttackPressed();
+            setAttackReady(attackPressed);
+            if (!attackPressed)
+                attackTime = 0;
+        }
         
         if(ability) {
         	triggerAbility();
@@ -258,35 +283,44 @@ public class Player extends Character {
         // Gives the player the attack texture for 0.1s after an attack.
         //if (hitRefresh <= 0.1 && getTexture() != attackTexture) {
         if (attackReady && attackTime < 30) {
-            setTexture(attackTexture);
+            setRegion(attackRegion);
         	attacking = true;
         }
         else {
         // Changes the texture back to the main one after 0.1s.
         //if (hitRefresh > 0.1 && getTexture() == attackTexture) {
-            setTexture(mainTexture);
+            setRegion(normalRegion);
         	attacking = false;
         }
     }
 
     /**
      * Handle player keyboard controls
-     * #changed:   Added this method, moving code from ZeprInputProcessor
+     * #changed:   Added this method, moving code from ZeprInputProcessor.
+     *             Keys are now read from the PlayerInput instead of Gdx.input, impulses reuse one vector
      */
     private void control() {
     	   	
     	Vector2 playerPosition = body.getPosition();
 
     	//Apply Box2D body impulses in specific direction when keys pressed
-    	if (Gdx.input.isKeyPressed(Keys.W))
-			body.applyLinearImpulse(new Vector2(0, speed), playerPosition, true);
-		else if (Gdx.input.isKeyPressed(Keys.S))
-			body.applyLinearImpulse(new Vector2(0, -speed), playerPosition, true);
-
-		if (Gdx.input.isKeyPressed(Keys.A))
-			body.applyLinearImpulse(new Vector2(-speed, 0), playerPosition, true);
-		else if (Gdx.input.isKeyPressed(Keys.D))
-			body.applyLinearImpulse(new Vector2(speed, 0), playerPosition, true);
+    	if (input.isKeyPressed(Keys.W))
+			body.applyLinearImpulse(impulse.set(0, speed), playerPosition, true);
+		else if (input.isKeyPressed(Keys.S))
+			body.applyLinearImpulse(impulse.set(0, -speed), playerPosition, true);
+
+		if (input.isKeyPressed(Keys.A))
+			body.applyLinearImpulse(impulse.set(-speed, 0), playerPosition, true);
+		else if (input.isKeyPressed(Keys.D))
+			body.applyLinearImpulse(impulse.set(speed, 0), playerPosition, true);
+    }
+
+    /**
+     * Set where the player controls come from
+     * @param input the input source, PlayerInput.IDLE for none
+     */
+    public void setInput(PlayerInput input) {
+        this.input = input;
     }
 
     /**
@@ -0,0 +1,58 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Source of the controls for the player, so the level can be driven by the keyboard and mouse,
+ * by a script or by nothing at all.
+ * #changed:   Added this interface
+ */
+public interface PlayerInput {
+
+    /**
+     * Input that never presses anything, used when the level runs without a window
+     */
+    PlayerInput IDLE = new PlayerInput() {
+        @Override
+        public void update() {
+        }
+
+        @Override
+        public boolean isKeyPressed(int keycode) {
+            return false;
+        }
+
+        @Override
+        public boolean isAttackPressed() {
+            return false;
+        }
+
+        @Override
+        public boolean getAim(Vector2 out) {
+            return false;
+        }
+    };
+
+    /**
+     * Called once at the start of every simulation step, before any of the other methods
+     */
+    void update();
+
+    /**
+     * @param keycode the key to check, one of Input.Keys
+     * @return true if the key is held down this step
+     */
+    boolean isKeyPressed(int keycode);
+
+    /**
+     * @return true if the attack button is held down this step
+     */
+    boolean isAttackPressed();
+
+    /**
+     * Gets the point the player is aiming at
+     * @param out vector to store the aim position in world coordinates in
+     * @return false if there is no aim position this step and the player should keep facing the same way
+     */
+    boolean getAim(Vector2 out);
+}
@@ -0,0 +1,84 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.Gdx;
+
+/**
+ * Keeps frames and simulation steps within their budgets on slower machines by cutting non-essential work,
+ * one Degradation at a time in their order, and restoring it in reverse once there is headroom again.
+ * Decisions are made from the average frame and step time over the last Constant.QUALITYWINDOW frames, and the
+ * window starts again after every change so each one is judged on frames made after it. Every change is logged.
+ * #changed:   Added this class
+ */
+public class QualityGovernor {
+
+    private static final int LEVELS = Degradation.values().length;
+
+    private final float[] frameTimes = new float[Constant.QUALITYWINDOW]; // seconds, oldest overwritten first
+    private final float[] stepTimes = new float[Constant.QUALITYWINDOW];
+    private float frameTotal, stepTotal;
+    private int samples; // frames in the window since the last change
+    private int next; // where the next frame goes
+    private int quality; // the number of degradations in effect
+    private int changes;
+
+    /**
+     * Record a frame and decide whether to change quality
+     * @param frameTime seconds spent making the frame
+     * @param stepTime seconds the last simulation step took
+     * @return the number of Degradations that should be in effect
+     */
+    public int update(float frameTime, float stepTime) {
+        if (samples == frameTimes.length) {
+            frameTotal -= frameTimes[next];
+            stepTotal -= stepTimes[next];
+        } else {
+            samples++;
+        }
+        frameTimes[next] = frameTime;
+        stepTimes[next] = stepTime;
+        frameTotal += frameTime;
+        stepTotal += stepTime;
+        next = (next + 1) % frameTimes.length;
+        if (samples < frameTimes.length)
+            return quality;
+
+        float frameAverage = frameTotal / samples;
+        float stepAverage = stepTotal / samples;
+        if ((frameAverage > Constant.FRAMEBUDGET || stepAverage > Constant.TICKBUDGET) && quality < LEVELS) {
+            Degradation cut = Degradation.values()[quality];
+            quality++;
+            log(frameAverage, stepAverage, "over budget, cutting " + cut.label);
+        } else if (frameAverage < Constant.FRAMEBUDGET * Constant.QUALITYHEADROOM
+                && stepAverage < Constant.TICKBUDGET * Constant.QUALITYHEADROOM && quality > 0) {
+            quality--;
+            Degradation restored = Degradation.values()[quality];
+            log(frameAverage, stepAverage, "within budget, restoring " + restored.label);
+        }
+        return quality;
+    }
+
+    private void log(float frameAverage, float stepAverage, String decision) {
+        Gdx.app.log("Quality", String.format("Frame %.1fms, step %.1fms %s, %d of %d cuts in effect",
+                frameAverage * 1000, stepAverage * 1000, decision, quality, LEVELS));
+        changes++;
+        // Start a new window so the next decision only sees frames made after this one
+        samples = 0;
+        next = 0;
+        frameTotal = 0;
+        stepTotal = 0;
+    }
+
+    /**
+     * @return the number of Degradations in effect
+     */
+    public int getQuality() {
+        return quality;
+    }
+
+    /**
+     * @return the number of times quality has been changed
+     */
+    public int getChanges() {
+        return changes;
+    }
+}
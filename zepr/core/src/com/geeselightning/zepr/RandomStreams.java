@@ -0,0 +1,54 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.math.RandomXS128;
+
+/**
+ * Seeded random number generators, one for each part of the game that needs randomness.
+ * Every stream is derived from the same seed but is independent of the others, so a change to how one
+ * part uses random numbers doesn't change the numbers any other part gets. Two runs with the same seed
+ * and the same input play out identically.
+ * #changed:   Added this class
+ */
+public class RandomStreams {
+
+    /**
+     * The parts of the game with their own stream
+     */
+    public enum Stream { SPAWN, POWERUP, BOSS, WANDER, MINIGAME }
+
+    private final long seed;
+    private final RandomXS128[] streams = new RandomXS128[Stream.values().length];
+
+    /**
+     * Constructor for the streams
+     * @param seed the seed every stream is derived from
+     */
+    public RandomStreams(long seed) {
+        this.seed = seed;
+        for (Stream stream : Stream.values())
+            streams[stream.ordinal()] = new RandomXS128(seed ^ (0x9E3779B97F4A7C15L * (stream.ordinal() + 1)));
+    }
+
+    /**
+     * @param stream the part of the game the numbers are for
+     * @return the generator for that part
+     */
+    public RandomXS128 get(Stream stream) {
+        return streams[stream.ordinal()];
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Add the state of every stream to a state hash
+     * @param hash the hash to add to
+     */
+    void addTo(StateHash hash) {
+        for (RandomXS128 stream : streams) {
+            hash.add(stream.getState(0));
+            hash.add(stream.getState(1));
+        }
+    }
+}
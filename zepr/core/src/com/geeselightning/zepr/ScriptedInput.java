@@ -0,0 +1,103 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Player input that plays back a fixed list of timed key presses, for running levels without a window.
+ * Each action holds a key from one step to another, the whole script can be repeated.
+ * #changed:   Added this class
+ */
+public class ScriptedInput implements PlayerInput {
+
+    /**
+     * Used in place of a keycode for the attack button
+     */
+    public static final int ATTACK = -2;
+
+    // Each action is stored as three ints: keycode, first step, last step (exclusive)
+    private final IntArray actions = new IntArray();
+    private final Vector2 aim = new Vector2();
+    private boolean hasAim = false;
+    private int loopLength = 0;
+    private int step = -1;
+
+    /**
+     * Hold a key for a range of steps
+     * @param keycode the key to hold, one of Input.Keys or ATTACK
+     * @param from first step to hold the key on
+     * @param to step to release the key on
+     * @return this script, for chaining
+     */
+    public ScriptedInput hold(int keycode, int from, int to) {
+        actions.add(keycode);
+        actions.add(from);
+        actions.add(to);
+        return this;
+    }
+
+    /**
+     * Aim at a fixed point for the whole script
+     * @param x world x coordinate
+     * @param y world y coordinate
+     * @return this script, for chaining
+     */
+    public ScriptedInput aimAt(float x, float y) {
+        aim.set(x, y);
+        hasAim = true;
+        return this;
+    }
+
+    /**
+     * Restart the script every given number of steps
+     * @param steps length of the script in steps, 0 to play it once
+     * @return this script, for chaining
+     */
+    public ScriptedInput loop(int steps) {
+        loopLength = steps;
+        return this;
+    }
+
+    /**
+     * A script that walks the player around a square while attacking, good enough to keep
+     * the zombies moving and fighting when benchmarking
+     * @return the script
+     */
+    public static ScriptedInput patrol() {
+        return new ScriptedInput()
+                .hold(Keys.W, 0, 60)
+                .hold(Keys.D, 60, 120)
+                .hold(Keys.S, 120, 180)
+                .hold(Keys.A, 180, 240)
+                .hold(ATTACK, 0, 240)
+                .loop(240);
+    }
+
+    @Override
+    public void update() {
+        step++;
+    }
+
+    @Override
+    public boolean isKeyPressed(int keycode) {
+        int current = loopLength > 0 ? step % loopLength : step;
+        for (int i = 0; i < actions.size; i += 3) {
+            if (actions.get(i) == keycode && current >= actions.get(i + 1) && current < actions.get(i + 2))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isAttackPressed() {
+        return isKeyPressed(ATTACK);
+    }
+
+    @Override
+    public boolean getAim(Vector2 out) {
+        if (hasAim)
+            out.set(aim);
+        return hasAim;
+    }
+}
@@ -0,0 +1,62 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.ai.GdxAI;
+import com.badlogic.gdx.ai.steer.Steerable;
+import com.badlogic.gdx.ai.steer.SteeringAcceleration;
+import com.badlogic.gdx.ai.steer.behaviors.Wander;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Wander steering that draws its random numbers from a generator it is given instead of MathUtils.random,
+ * so every simulation can wander from its own seeded stream. Otherwise it steers exactly like Wander.
+ * #changed:   Added this class
+ */
+public class SeededWander extends Wander<Vector2> {
+
+    private final RandomXS128 random;
+
+    /**
+     * Constructor for the behaviour
+     * @param owner the character to move
+     * @param random the generator the wander orientation changes are drawn from
+     */
+    public SeededWander(Steerable<Vector2> owner, RandomXS128 random) {
+        super(owner);
+        this.random = random;
+    }
+
+    @Override
+    protected SteeringAcceleration<Vector2> calculateRealSteering(SteeringAcceleration<Vector2> steering) {
+        // Update the wander orientation, the same triangular distribution as MathUtils.randomTriangular
+        float now = GdxAI.getTimepiece().getTime();
+        if (lastTime > 0) {
+            float delta = now - lastTime;
+            wanderOrientation += (random.nextFloat() - random.nextFloat()) * wanderRate * delta;
+        }
+        lastTime = now;
+
+        // Calculate the combined target orientation
+        float targetOrientation = wanderOrientation + owner.getOrientation();
+
+        // Calculate the center of the wander circle, then the target location on it
+        Vector2 wanderCenter = getWanderCenter().set(owner.getPosition())
+                .mulAdd(owner.angleToVector(steering.linear, owner.getOrientation()), wanderOffset);
+        Vector2 internalTargetPosition = getInternalTargetPosition().set(wanderCenter)
+                .mulAdd(owner.angleToVector(steering.linear, targetOrientation), wanderRadius);
+
+        float maxLinearAcceleration = getActualLimiter().getMaxLinearAcceleration();
+
+        if (faceEnabled) {
+            // Delegate to face, then set the linear acceleration to full in the direction of the orientation
+            face(steering, internalTargetPosition);
+            owner.angleToVector(steering.linear, owner.getOrientation()).scl(maxLinearAcceleration);
+        } else {
+            // Seek the internal target position
+            steering.linear.set(internalTargetPosition).sub(owner.getPosition()).nor().scl(maxLinearAcceleration);
+            steering.angular = 0;
+        }
+
+        return steering;
+    }
+}
@@ -0,0 +1,337 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.Gdx;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steps a LevelSimulation at a fixed rate and publishes a WorldSnapshot after every step for the screen to draw.
+ * When threaded the simulation runs on its own thread, so a slow frame never delays a step or a slow step a
+ * frame. Snapshots are triple buffered: the simulation fills one while the newest complete one waits and the
+ * screen draws a third, so neither side ever waits for the other. Listener events are passed to the render
+ * thread with Gdx.app.postRunnable(), where the sounds, music and screen changes they cause are allowed.
+ * <p>
+ * Unthreaded the simulation is stepped by update() on the render thread, as replays need so seeking can
+ * jump the simulation to any step between frames.
+ * #changed:   Added this class, moving the fixed step code from Level.render()
+ */
+public class SimulationRunner implements LevelSimulation.Listener {
+
+    private static final long STEPNANOS = (long) (Constant.TIMESTEP * 1e9);
+
+    private LevelSimulation simulation;
+    private final LevelSimulation.Listener listener;
+    private final boolean threaded;
+    private final Thread thread;
+    private final Object stepLock = new Object(); // held for the whole of every step
+
+    // The snapshot being drawn, the newest complete one and the one being filled, swapped while holding this
+    private WorldSnapshot front = new WorldSnapshot();
+    private WorldSnapshot ready = new WorldSnapshot();
+    private WorldSnapshot back = new WorldSnapshot();
+    private boolean fresh; // ready is newer than front
+
+    // The area the screen shows, set while holding this
+    private float viewX, viewY, viewWidth, viewHeight;
+    private int quality = -1; // set while holding this, -1 leaves the simulation's own as replays set it
+
+    private volatile boolean running; // steps are taken
+    private volatile boolean stopped; // the thread has been told to end
+    private float accumulator; // frame time not yet consumed by steps, unthreaded only
+
+    /**
+     * Constructor for the runner, which starts paused
+     * @param simulation the simulation to step
+     * @param listener told about the simulation's events, always on the render thread
+     * @param threaded whether to step the simulation on its own thread rather than in update()
+     */
+    public SimulationRunner(LevelSimulation simulation, LevelSimulation.Listener listener, boolean threaded) {
+        this.listener = listener;
+        this.threaded = threaded;
+        setSimulation(simulation);
+        if (threaded) {
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    loop();
+                }
+            }, "Simulation");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            thread = null;
+        }
+    }
+
+    /**
+     * Replace the simulation, only allowed while paused or unthreaded. A snapshot of it is taken straight away.
+     * @param simulation the simulation to step from now on
+     */
+    public void setSimulation(LevelSimulation simulation) {
+        synchronized (stepLock) {
+            this.simulation = simulation;
+            simulation.setListener(this);
+            accumulator = 0;
+            publish();
+        }
+    }
+
+    /**
+     * Set the area the screen shows. Characters in it keep full AI, and snapshots hold the characters near it.
+     * @param x left edge in pixels
+     * @param y bottom edge in pixels
+     * @param width width in pixels
+     * @param height height in pixels
+     */
+    public synchronized void setView(float x, float y, float width, float height) {
+        viewX = x;
+        viewY = y;
+        viewWidth = width;
+        viewHeight = height;
+    }
+
+    /**
+     * Set the quality level of the steps from the next one on
+     * @param quality the number of Degradations to put in effect
+     */
+    public synchronized void setQuality(int quality) {
+        this.quality = quality;
+    }
+
+    /**
+     * Step the simulation for the time that has passed, only when unthreaded
+     * @param delta the time since the last frame
+     */
+    public void update(float delta) {
+        if (threaded || !running)
+            return;
+        // Time beyond a few steps is dropped so a slow frame can't make the next one slower
+        accumulator = Math.min(accumulator + delta, Constant.MAXSTEPSPERFRAME * Constant.TIMESTEP);
+        while (accumulator >= Constant.TIMESTEP && running) {
+            step();
+            accumulator -= Constant.TIMESTEP;
+        }
+    }
+
+    private void loop() {
+        long next = System.nanoTime();
+        while (!stopped) {
+            long now = System.nanoTime();
+            if (!running) {
+                // Time spent paused is not caught up on
+                LockSupport.parkNanos(STEPNANOS);
+                next = now;
+                continue;
+            }
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+            // As unthreaded, steps that have fallen too far behind are dropped rather than run back to back
+            next = Math.max(next, now - Constant.MAXSTEPSPERFRAME * STEPNANOS);
+            step();
+            next += STEPNANOS;
+        }
+    }
+
+    private void step() {
+        synchronized (stepLock) {
+            if (!running || simulation.isFinished())
+                return;
+            synchronized (this) {
+                simulation.setView(viewX, viewY, viewWidth, viewHeight);
+                if (quality >= 0 && quality != simulation.getQuality())
+                    simulation.setQuality(quality);
+            }
+            simulation.update(Constant.TIMESTEP);
+            publish();
+        }
+    }
+
+    /**
+     * Fill the back snapshot from the simulation and make it the newest
+     */
+    private void publish() {
+        float x, y, width, height;
+        synchronized (this) {
+            x = viewX;
+            y = viewY;
+            width = viewWidth;
+            height = viewHeight;
+        }
+        back.capture(simulation, x - Constant.CULLMARGIN, y - Constant.CULLMARGIN,
+                x + width + Constant.CULLMARGIN, y + height + Constant.CULLMARGIN);
+        synchronized (this) {
+            WorldSnapshot newest = back;
+            back = ready;
+            ready = newest;
+            fresh = true;
+        }
+    }
+
+    /**
+     * Get the newest snapshot for drawing, it stays unchanged until the next call
+     * @return the newest snapshot
+     */
+    public synchronized WorldSnapshot latest() {
+        if (fresh) {
+            WorldSnapshot previous = front;
+            front = ready;
+            ready = previous;
+            fresh = false;
+        }
+        return front;
+    }
+
+    /**
+     * @param snapshot the snapshot being drawn
+     * @return how far from the snapshot's previous (0) to its current (1) step to draw the characters
+     */
+    public float getAlpha(WorldSnapshot snapshot) {
+        if (!threaded)
+            return accumulator / Constant.TIMESTEP;
+        // Drawn one step behind, moving towards the snapshot over the step after it was taken
+        float alpha = (System.nanoTime() - snapshot.time) / (float) STEPNANOS;
+        return Math.max(0, Math.min(alpha, 1));
+    }
+
+    /**
+     * Stop stepping, once this returns no step is running and the simulation may be read or changed
+     */
+    public void pause() {
+        running = false;
+        synchronized (stepLock) {
+            // Waits for a step in progress to finish
+        }
+    }
+
+    /**
+     * Carry on stepping, from now rather than catching up on the time spent paused
+     */
+    public void resume() {
+        accumulator = 0;
+        running = true;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    public boolean isThreaded() {
+        return threaded;
+    }
+
+    /**
+     * Stop stepping for good and end the thread. Events already passed to the render thread are dropped.
+     */
+    public void dispose() {
+        pause();
+        stopped = true;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Pass an event to the listener on the render thread
+     * @param event calls the listener, run straight away when unthreaded
+     */
+    private void post(Runnable event) {
+        if (threaded)
+            Gdx.app.postRunnable(event);
+        else
+            event.run();
+    }
+
+    // Events are made once so passing one on allocates nothing
+    private final Runnable zombieHit = new Runnable() {
+        @Override
+        public void run() {
+            if (!stopped)
+                listener.zombieHit();
+        }
+    };
+
+    private final Runnable playerInfected = new Runnable() {
+        @Override
+        public void run() {
+            if (!stopped)
+                listener.playerInfected();
+        }
+    };
+
+    private final Runnable zombiesCured = new Runnable() {
+        @Override
+        public void run() {
+            if (!stopped)
+                listener.zombiesCured();
+        }
+    };
+
+    // The level ends on these, so the simulation is left paused for the listener to read the final state
+    private final Runnable playerDied = new Runnable() {
+        @Override
+        public void run() {
+            if (stopped)
+                return;
+            pause();
+            listener.playerDied();
+        }
+    };
+
+    private final Runnable levelCompleted = new Runnable() {
+        @Override
+        public void run() {
+            if (stopped)
+                return;
+            pause();
+            listener.levelCompleted();
+        }
+    };
+
+    private final Runnable levelOverrun = new Runnable() {
+        @Override
+        public void run() {
+            if (stopped)
+                return;
+            pause();
+            listener.levelOverrun();
+        }
+    };
+
+    @Override
+    public void zombieHit() {
+        post(zombieHit);
+    }
+
+    @Override
+    public void playerInfected() {
+        post(playerInfected);
+    }
+
+    @Override
+    public void zombiesCured() {
+        post(zombiesCured);
+    }
+
+    @Override
+    public void playerDied() {
+        // No more steps, the listener decides what happens next
+        running = false;
+        post(playerDied);
+    }
+
+    @Override
+    public void levelCompleted() {
+        running = false;
+        post(levelCompleted);
+    }
+
+    @Override
+    public void levelOverrun() {
+        running = false;
+        post(levelOverrun);
+    }
+}
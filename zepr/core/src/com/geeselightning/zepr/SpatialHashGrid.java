@@ -0,0 +1,273 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Uniform grid used to find nearby characters without scanning the whole level.
+ * Items are bucketed by the cell their position falls in, and cells are hashed into a
+ * table sized to the capacity so the grid needs no bounds and can be cleared and refilled
+ * every tick without allocating.
+ * #changed:   Added this class
+ */
+public class SpatialHashGrid<T> {
+
+    private static final int EMPTY = -1;
+
+    private final float cellSize;
+    private int[] bucketHead;
+    private int bucketMask;
+
+    // Entries are stored in parallel arrays, chained per bucket through next[]
+    private Object[] items;
+    private float[] xs;
+    private float[] ys;
+    private int[] cellXs;
+    private int[] cellYs;
+    private int[] next;
+    private int size;
+    private int count;
+
+    // Cell bounds of everything inserted since the last clear, used to stop ring searches
+    private int minCellX, minCellY, maxCellX, maxCellY;
+
+    /**
+     * Constructor for the grid
+     * @param cellSize width and height of a cell in pixels
+     * @param capacity initial number of entries, the grid grows if more are inserted
+     */
+    public SpatialHashGrid(float cellSize, int capacity) {
+        this.cellSize = cellSize;
+
+        bucketHead = new int[bucketsFor(capacity)];
+        bucketMask = bucketHead.length - 1;
+
+        items = new Object[capacity];
+        xs = new float[capacity];
+        ys = new float[capacity];
+        cellXs = new int[capacity];
+        cellYs = new int[capacity];
+        next = new int[capacity];
+        clear();
+    }
+
+    /**
+     * Remove every entry from the grid
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            items[i] = null;
+        for (int i = 0; i < bucketHead.length; i++)
+            bucketHead[i] = EMPTY;
+        size = 0;
+        count = 0;
+        minCellX = minCellY = Integer.MAX_VALUE;
+        maxCellX = maxCellY = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Add an item to the grid
+     * @param item the item to add
+     * @param x the x coordinate of the item in pixels
+     * @param y the y coordinate of the item in pixels
+     */
+    public void insert(T item, float x, float y) {
+        if (size == items.length)
+            grow();
+
+        int cellX = cellOf(x);
+        int cellY = cellOf(y);
+        int bucket = bucketOf(cellX, cellY);
+
+        items[size] = item;
+        xs[size] = x;
+        ys[size] = y;
+        cellXs[size] = cellX;
+        cellYs[size] = cellY;
+        next[size] = bucketHead[bucket];
+        bucketHead[bucket] = size;
+        size++;
+        count++;
+
+        minCellX = Math.min(minCellX, cellX);
+        minCellY = Math.min(minCellY, cellY);
+        maxCellX = Math.max(maxCellX, cellX);
+        maxCellY = Math.max(maxCellY, cellY);
+    }
+
+    /**
+     * Remove an item from the grid
+     * @param item the item to remove
+     * @param x the x coordinate the item was inserted with
+     * @param y the y coordinate the item was inserted with
+     * @return true if the item was found and removed
+     */
+    public boolean remove(T item, float x, float y) {
+        int bucket = bucketOf(cellOf(x), cellOf(y));
+        int previous = EMPTY;
+        for (int i = bucketHead[bucket]; i != EMPTY; i = next[i]) {
+            if (items[i] == item) {
+                if (previous == EMPTY)
+                    bucketHead[bucket] = next[i];
+                else
+                    next[previous] = next[i];
+                items[i] = null;
+                count--;
+                return true;
+            }
+            previous = i;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the item closest to the given point, searching outwards one ring of cells at a time
+     * and stopping as soon as no unsearched cell can contain anything closer.
+     * @param x the x coordinate to search from in pixels
+     * @param y the y coordinate to search from in pixels
+     * @return the closest item, or null if the grid is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T nearest(float x, float y) {
+        if (count == 0)
+            return null;
+
+        int centreX = cellOf(x);
+        int centreY = cellOf(y);
+        int maxRing = Math.max(Math.max(centreX - minCellX, maxCellX - centreX),
+                Math.max(centreY - minCellY, maxCellY - centreY));
+
+        int closest = EMPTY;
+        float closestDistance = Float.MAX_VALUE;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Anything in this ring or beyond is at least (ring - 1) cells away
+            if (closest != EMPTY && ring > 1) {
+                float reach = (ring - 1) * cellSize;
+                if (reach * reach >= closestDistance)
+                    break;
+            }
+
+            for (int cellX = centreX - ring; cellX <= centreX + ring; cellX++) {
+                boolean edgeColumn = cellX == centreX - ring || cellX == centreX + ring;
+                int step = edgeColumn ? 1 : Math.max(1, 2 * ring);
+                for (int cellY = centreY - ring; cellY <= centreY + ring; cellY += step) {
+                    if (cellX < minCellX || cellX > maxCellX || cellY < minCellY || cellY > maxCellY)
+                        continue;
+                    for (int i = bucketHead[bucketOf(cellX, cellY)]; i != EMPTY; i = next[i]) {
+                        if (cellXs[i] != cellX || cellYs[i] != cellY)
+                            continue;
+                        float dx = xs[i] - x;
+                        float dy = ys[i] - y;
+                        float distance = dx * dx + dy * dy;
+                        if (distance < closestDistance) {
+                            closestDistance = distance;
+                            closest = i;
+                        }
+                    }
+                }
+            }
+        }
+
+        return closest == EMPTY ? null : (T) items[closest];
+    }
+
+    /**
+     * Collects every item whose position lies inside the given rectangle
+     * @param minX left edge of the rectangle in pixels
+     * @param minY bottom edge of the rectangle in pixels
+     * @param maxX right edge of the rectangle in pixels
+     * @param maxY top edge of the rectangle in pixels
+     * @param out array the matching items are added to
+     * @return the number of items added
+     */
+    @SuppressWarnings("unchecked")
+    public int query(float minX, float minY, float maxX, float maxY, Array<T> out) {
+        if (count == 0)
+            return 0;
+
+        int added = 0;
+        int fromX = Math.max(cellOf(minX), minCellX);
+        int fromY = Math.max(cellOf(minY), minCellY);
+        int toX = Math.min(cellOf(maxX), maxCellX);
+        int toY = Math.min(cellOf(maxY), maxCellY);
+
+        for (int cellX = fromX; cellX <= toX; cellX++) {
+            for (int cellY = fromY; cellY <= toY; cellY++) {
+                for (int i = bucketHead[bucketOf(cellX, cellY)]; i != EMPTY; i = next[i]) {
+                    if (cellXs[i] != cellX || cellYs[i] != cellY)
+                        continue;
+                    if (xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY) {
+                        out.add((T) items[i]);
+                        added++;
+                    }
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @return the number of items currently in the grid
+     */
+    public int size() {
+        return count;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    private int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * @return the size of the bucket table for a capacity, a power of two so a mask picks the bucket
+     */
+    private static int bucketsFor(int capacity) {
+        int buckets = 64;
+        while (buckets < capacity * 2)
+            buckets <<= 1;
+        return buckets;
+    }
+
+    private int bucketOf(int cellX, int cellY) {
+        return ((cellX * 73856093) ^ (cellY * 19349663)) & bucketMask;
+    }
+
+    private void grow() {
+        int capacity = Math.max(8, items.length * 2);
+        Object[] newItems = new Object[capacity];
+        float[] newXs = new float[capacity];
+        float[] newYs = new float[capacity];
+        int[] newCellXs = new int[capacity];
+        int[] newCellYs = new int[capacity];
+        int[] newNext = new int[capacity];
+        System.arraycopy(items, 0, newItems, 0, size);
+        System.arraycopy(xs, 0, newXs, 0, size);
+        System.arraycopy(ys, 0, newYs, 0, size);
+        System.arraycopy(cellXs, 0, newCellXs, 0, size);
+        System.arraycopy(cellYs, 0, newCellYs, 0, size);
+        System.arraycopy(next, 0, newNext, 0, size);
+        items = newItems;
+        xs = newXs;
+        ys = newYs;
+        cellXs = newCellXs;
+        cellYs = newCellYs;
+        next = newNext;
+
+        // Rehash into a table sized to the new capacity so the chains stay short.
+        // Entries go back in the order they were inserted, keeping the newest at the head of each chain
+        bucketHead = new int[bucketsFor(capacity)];
+        bucketMask = bucketHead.length - 1;
+        for (int i = 0; i < bucketHead.length; i++)
+            bucketHead[i] = EMPTY;
+        for (int i = 0; i < size; i++) {
+            if (items[i] == null)
+                continue;
+            int bucket = bucketOf(cellXs[i], cellYs[i]);
+            next[i] = bucketHead[bucket];
+            bucketHead[bucket] = i;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Queue;
+
+/**
+ * Spreads the spawning of a wave over several ticks. Spawns are queued when a wave starts and a few
+ * are taken from the queue each tick, so a large wave does not create all of its zombies in one frame.
+ * Each tick spawns at most Constant.SPAWNSPERTICK characters, and stops early once Constant.SPAWNBUDGET
+ * nanoseconds have been spent if a time budget is set. At least one spawn is made every tick so the
+ * queue always drains.
+ * #changed:   Added this class
+ */
+public class SpawnScheduler {
+
+    private final LevelSimulation simulation;
+    private int spawnsPerTick;
+    private final long budget;
+    private final Queue<Vector2> positions = new Queue<>(64);
+    private final Queue<Zombie.Type> types = new Queue<>(64);
+    private int pendingZombies;
+    private int pendingNonZombies;
+    private long worstTickCost; // longest time spent spawning in one tick, in nanoseconds
+    private int worstTickSpawns; // the number of spawns made in that tick
+
+    /**
+     * Constructor for the scheduler
+     * @param simulation the simulation the characters are spawned into
+     * @param spawnsPerTick the most characters spawned in one tick
+     * @param budget nanoseconds a tick may spend spawning, 0 for no time budget
+     */
+    public SpawnScheduler(LevelSimulation simulation, int spawnsPerTick, long budget) {
+        this.simulation = simulation;
+        this.spawnsPerTick = spawnsPerTick;
+        this.budget = budget;
+    }
+
+    /**
+     * Queue a character to be spawned in a later tick
+     * @param position where to spawn the character, kept by reference until it is spawned
+     * @param type the type of character to spawn
+     */
+    public void add(Vector2 position, Zombie.Type type) {
+        positions.addLast(position);
+        types.addLast(type);
+        if (Zombie.isZombieType(type))
+            pendingZombies++;
+        else
+            pendingNonZombies++;
+    }
+
+    /**
+     * Spawn queued characters until the count or time budget of this tick is used up
+     */
+    public void update() {
+        if (positions.size == 0)
+            return;
+
+        long start = System.nanoTime();
+        long elapsed = 0;
+        int spawned = 0;
+        while (positions.size > 0 && spawned < spawnsPerTick && (budget <= 0 || elapsed < budget)) {
+            Zombie.Type type = types.removeFirst();
+            if (Zombie.isZombieType(type))
+                pendingZombies--;
+            else
+                pendingNonZombies--;
+            simulation.spawn(positions.removeFirst(), type);
+            spawned++;
+            elapsed = System.nanoTime() - start;
+        }
+
+        if (elapsed > worstTickCost) {
+            worstTickCost = elapsed;
+            worstTickSpawns = spawned;
+        }
+    }
+
+    /**
+     * @param spawnsPerTick the most characters to spawn in one tick from now on
+     */
+    public void setSpawnsPerTick(int spawnsPerTick) {
+        this.spawnsPerTick = spawnsPerTick;
+    }
+
+    /**
+     * Drop every queued spawn
+     */
+    public void clear() {
+        positions.clear();
+        types.clear();
+        pendingZombies = 0;
+        pendingNonZombies = 0;
+    }
+
+    /**
+     * @return the number of zombies queued but not yet spawned
+     */
+    public int getPendingZombies() {
+        return pendingZombies;
+    }
+
+    /**
+     * @return the number of nonZombies queued but not yet spawned
+     */
+    public int getPendingNonZombies() {
+        return pendingNonZombies;
+    }
+
+    /**
+     * @return the longest time spent spawning in a single tick, in nanoseconds
+     */
+    public long getWorstTickCost() {
+        return worstTickCost;
+    }
+
+    /**
+     * @return how many characters were spawned in the tick that took longest
+     */
+    public int getWorstTickSpawns() {
+        return worstTickSpawns;
+    }
+}
@@ -0,0 +1,175 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The character, power up and UI images, shared by every sprite that shows them. The packTextures Gradle task
+ * packs them all into sprites.atlas, one texture, so a whole wave with its health bars is drawn without the
+ * SpriteBatch having to flush to switch texture. If the atlas has not been built each image is loaded from its
+ * own png instead, which still works but binds a texture per image.
+ * <p>
+ * Images are loaded through an AssetManager of their own and reference counted. Everything that shows an image acquires it and
+ * releases it when done, and the file is unloaded once nothing holds any of its images. Acquiring an image
+ * that is already loaded only counts it, so a character changing type never reads from disk or uploads a texture.
+ * The methods are synchronized as the simulation may run on its own thread. Only the render thread can create
+ * or delete textures, so a level acquires all of IMAGES there first and the simulation thread just counts.
+ * #changed:   Added this class
+ */
+public class Sprites {
+
+    public static final String ATLAS = "sprites.atlas";
+    // Every image the level can show, the same list the packTextures task packs
+    public static final String[] IMAGES = { "player01", "player01_attack", "player02", "player02_attack",
+            "player03", "player03_attack", "zombie01", "zombie01_attack", "zombie02", "zombie02_attack",
+            "zombie03", "zombie03_attack", "GeeseLightningBoss", "JJBossZombie", "JJBossZombie_attack",
+            "cure", "heal", "immunity", "instakill", "invisibility", "speed", "blank" };
+
+    // Kept apart from Zepr.manager so the counts below can never refer to files another manager holds
+    private static AssetManager manager;
+    private static Boolean atlasBuilt; // whether the atlas file exists, checked on first use
+    // Holders of each loaded file, the atlas or a loose png, and the files in the order they were loaded
+    private static final ObjectIntMap<String> holders = new ObjectIntMap<>();
+    private static final Array<String> loadedFiles = new Array<>();
+    // Regions already looked up, forgotten when their file is unloaded
+    private static final ObjectMap<String, TextureRegion> regions = new ObjectMap<>();
+
+    private Sprites() {
+    }
+
+    /**
+     * Acquire one of the images, loading it if nothing holds it yet. Must be released when no longer shown.
+     * @param name the file name of the image without .png, e.g. zombie01
+     * @return the shared region holding the image, must not be changed
+     */
+    public static synchronized TextureRegion acquire(String name) {
+        String file = fileOf(name);
+        int count = holders.getAndIncrement(file, 0, 1);
+        if (count == 0) {
+            AssetManager manager = manager();
+            if (isAtlas(file))
+                manager.load(file, TextureAtlas.class);
+            else
+                manager.load(file, Texture.class);
+            manager.finishLoadingAsset(file);
+            loadedFiles.add(file);
+        }
+
+        TextureRegion region = regions.get(name);
+        if (region == null) {
+            if (isAtlas(file))
+                region = manager().get(file, TextureAtlas.class).findRegion(name);
+            else
+                region = new TextureRegion(manager().get(file, Texture.class));
+            if (region == null)
+                throw new IllegalArgumentException(name + " is not in " + ATLAS);
+            regions.put(name, region);
+        }
+        return region;
+    }
+
+    /**
+     * Release an image acquired earlier, its file is unloaded once nothing holds any of its images
+     * @param name the name the image was acquired with
+     */
+    public static synchronized void release(String name) {
+        String file = fileOf(name);
+        int count = holders.get(file, 0);
+        if (count <= 0)
+            throw new IllegalStateException(name + " was released more times than it was acquired");
+        if (count > 1) {
+            holders.put(file, count - 1);
+            return;
+        }
+        unload(file);
+    }
+
+    private static void unload(String file) {
+        holders.remove(file, 0);
+        loadedFiles.removeValue(file, false);
+        manager().unload(file);
+        // Only the regions of this file are forgotten, the atlas holds every region so this is all of them
+        if (isAtlas(file))
+            regions.clear();
+        else
+            regions.remove(file.substring(0, file.length() - ".png".length()));
+    }
+
+    /**
+     * @return the number of textures loaded for the images, counting each atlas page as one
+     */
+    public static synchronized int getLiveTextures() {
+        int textures = 0;
+        for (String file : loadedFiles)
+            textures += isAtlas(file) ? manager().get(file, TextureAtlas.class).getTextures().size : 1;
+        return textures;
+    }
+
+    /**
+     * @return an estimate of the memory used by the loaded textures, in bytes, from their size and pixel format
+     */
+    public static synchronized long getLiveBytes() {
+        long bytes = 0;
+        for (String file : loadedFiles) {
+            if (isAtlas(file)) {
+                for (Texture texture : manager().get(file, TextureAtlas.class).getTextures())
+                    bytes += bytesOf(texture);
+            } else {
+                bytes += bytesOf(manager().get(file, Texture.class));
+            }
+        }
+        return bytes;
+    }
+
+    private static long bytesOf(Texture texture) {
+        Pixmap.Format format = texture.getTextureData().getFormat();
+        int bytesPerPixel;
+        if (format == Pixmap.Format.Alpha || format == Pixmap.Format.Intensity)
+            bytesPerPixel = 1;
+        else if (format == Pixmap.Format.RGB888)
+            bytesPerPixel = 3;
+        else if (format == Pixmap.Format.RGBA8888 || format == null)
+            bytesPerPixel = 4;
+        else
+            bytesPerPixel = 2;
+        return (long) texture.getWidth() * texture.getHeight() * bytesPerPixel;
+    }
+
+    /**
+     * Unload every image whatever still holds it and dispose of the manager, for when the game closes
+     */
+    public static synchronized void dispose() {
+        while (loadedFiles.size > 0)
+            unload(loadedFiles.peek());
+        if (manager != null)
+            manager.dispose();
+        manager = null;
+        atlasBuilt = null;
+    }
+
+    private static String fileOf(String name) {
+        if (atlasBuilt == null)
+            atlasBuilt = Gdx.files.internal(ATLAS).exists();
+        return atlasBuilt ? ATLAS : name + ".png";
+    }
+
+    private static boolean isAtlas(String file) {
+        return file.equals(ATLAS);
+    }
+
+    /**
+     * @return the manager the images are loaded through, created on first use
+     */
+    private static AssetManager manager() {
+        if (manager == null)
+            manager = new AssetManager();
+        return manager;
+    }
+}
@@ -0,0 +1,47 @@
+package com.geeselightning.zepr;
+
+/**
+ * A 64 bit hash built up from the values that make up the state of the simulation. Two runs that hash
+ * the same every step are in the same state, the first step the hashes differ is where they diverged.
+ * Floats are hashed by their bits so any difference at all is caught.
+ * #changed:   Added this class
+ */
+public class StateHash {
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private long hash;
+
+    /**
+     * Start a new hash
+     */
+    public void reset() {
+        hash = 0xCBF29CE484222325L;
+    }
+
+    public void add(long value) {
+        hash = Long.rotateLeft(hash ^ (value * MULTIPLIER), 31) * 0xBF58476D1CE4E5B9L;
+    }
+
+    public void add(int value) {
+        add((long) value);
+    }
+
+    public void add(float value) {
+        add(Float.floatToIntBits(value));
+    }
+
+    public void add(boolean value) {
+        add(value ? 1 : 0);
+    }
+
+    /**
+     * @return the hash of everything added since the last reset
+     */
+    public long get() {
+        // Final mix so every input bit affects every output bit
+        long h = hash;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,221 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Draws the tile layers of a map from geometry built once, instead of rebuilding every visible tile each frame
+ * as OrthogonalTiledMapRenderer does. The tiles never change during a level, so the map is split into square
+ * chunks and every visible layer of each chunk is baked into a SpriteCache when the level loads. A frame only
+ * picks the chunks the camera overlaps and draws each with a single call.
+ * #changed:   Added this class
+ */
+public class StaticMapCache {
+
+    private static final int VERTEXSIZE = 5; // x, y, colour, u, v
+    private static final int TILEFLOATS = 6 * VERTEXSIZE; // two triangles, the cache is built without indices
+
+    private final SpriteCache cache;
+    private final int chunksX, chunksY;
+    private final float chunkWidth, chunkHeight; // in pixels
+    private final int[] chunkCaches; // cache id of each chunk, row by row, -1 for chunks with no tiles
+    private final float[] vertices = new float[TILEFLOATS];
+    // Texture coordinates of the corners of the tile being added, bottom left then clockwise
+    private final float[] u = new float[4];
+    private final float[] v = new float[4];
+    private int drawnChunks;
+
+    /**
+     * Constructor for the cache, bakes every visible tile layer of the map
+     * @param map the map to draw
+     * @param unitScale pixels in the world per pixel of the tiles
+     * @param chunkTiles width and height of each chunk in tiles
+     */
+    public StaticMapCache(TiledMap map, float unitScale, int chunkTiles) {
+        Array<TiledMapTileLayer> layers = new Array<>();
+        int tiles = 0;
+        int width = 0;
+        int height = 0;
+        float tileWidth = 0;
+        float tileHeight = 0;
+        for (TiledMapTileLayer layer : map.getLayers().getByType(TiledMapTileLayer.class)) {
+            if (!layer.isVisible())
+                continue;
+            layers.add(layer);
+            width = Math.max(width, layer.getWidth());
+            height = Math.max(height, layer.getHeight());
+            tileWidth = layer.getTileWidth() * unitScale;
+            tileHeight = layer.getTileHeight() * unitScale;
+            for (int x = 0; x < layer.getWidth(); x++)
+                for (int y = 0; y < layer.getHeight(); y++)
+                    if (hasTile(layer.getCell(x, y)))
+                        tiles++;
+        }
+
+        chunksX = (width + chunkTiles - 1) / chunkTiles;
+        chunksY = (height + chunkTiles - 1) / chunkTiles;
+        chunkWidth = chunkTiles * tileWidth;
+        chunkHeight = chunkTiles * tileHeight;
+        chunkCaches = new int[chunksX * chunksY];
+        // Without indices the cache has no limit on its size, a large map can hold more tiles than indices allow
+        cache = new SpriteCache(Math.max(tiles, 1), false);
+
+        for (int chunkY = 0; chunkY < chunksY; chunkY++) {
+            for (int chunkX = 0; chunkX < chunksX; chunkX++) {
+                cache.beginCache();
+                int added = 0;
+                // Layers are added in map order so each chunk draws them bottom to top
+                for (TiledMapTileLayer layer : layers) {
+                    float colour = Color.toFloatBits(1, 1, 1, layer.getOpacity());
+                    int toX = Math.min((chunkX + 1) * chunkTiles, layer.getWidth());
+                    int toY = Math.min((chunkY + 1) * chunkTiles, layer.getHeight());
+                    for (int y = chunkY * chunkTiles; y < toY; y++) {
+                        for (int x = chunkX * chunkTiles; x < toX; x++) {
+                            Cell cell = layer.getCell(x, y);
+                            if (hasTile(cell)) {
+                                addTile(cell, x * tileWidth, y * tileHeight, unitScale, colour);
+                                added++;
+                            }
+                        }
+                    }
+                }
+                int id = cache.endCache();
+                chunkCaches[chunkY * chunksX + chunkX] = added > 0 ? id : -1;
+            }
+        }
+    }
+
+    private static boolean hasTile(Cell cell) {
+        return cell != null && cell.getTile() != null;
+    }
+
+    /**
+     * Add one tile to the cache being built, flipped and rotated the same way OrthogonalTiledMapRenderer does
+     */
+    private void addTile(Cell cell, float x, float y, float unitScale, float colour) {
+        TiledMapTile tile = cell.getTile();
+        TextureRegion region = tile.getTextureRegion();
+
+        float x1 = x + tile.getOffsetX() * unitScale;
+        float y1 = y + tile.getOffsetY() * unitScale;
+        float x2 = x1 + region.getRegionWidth() * unitScale;
+        float y2 = y1 + region.getRegionHeight() * unitScale;
+
+        u[0] = region.getU();  v[0] = region.getV2();
+        u[1] = region.getU();  v[1] = region.getV();
+        u[2] = region.getU2(); v[2] = region.getV();
+        u[3] = region.getU2(); v[3] = region.getV2();
+
+        if (cell.getFlipHorizontally()) {
+            swap(u, 0, 2);
+            swap(u, 1, 3);
+        }
+        if (cell.getFlipVertically()) {
+            swap(v, 0, 1);
+            swap(v, 2, 3);
+        }
+        switch (cell.getRotation()) {
+            case Cell.ROTATE_90:
+                rotate(u, 1);
+                rotate(v, 1);
+                break;
+            case Cell.ROTATE_180:
+                rotate(u, 2);
+                rotate(v, 2);
+                break;
+            case Cell.ROTATE_270:
+                rotate(u, 3);
+                rotate(v, 3);
+                break;
+        }
+
+        // Two triangles, bottom left, top left, top right then top right, bottom right, bottom left
+        int i = 0;
+        i = vertex(i, x1, y1, colour, 0);
+        i = vertex(i, x1, y2, colour, 1);
+        i = vertex(i, x2, y2, colour, 2);
+        i = vertex(i, x2, y2, colour, 2);
+        i = vertex(i, x2, y1, colour, 3);
+        vertex(i, x1, y1, colour, 0);
+        cache.add(region.getTexture(), vertices, 0, TILEFLOATS);
+    }
+
+    private int vertex(int i, float x, float y, float colour, int corner) {
+        vertices[i++] = x;
+        vertices[i++] = y;
+        vertices[i++] = colour;
+        vertices[i++] = u[corner];
+        vertices[i++] = v[corner];
+        return i;
+    }
+
+    private static void swap(float[] values, int a, int b) {
+        float temp = values[a];
+        values[a] = values[b];
+        values[b] = temp;
+    }
+
+    /**
+     * Move each corner's coordinate to the previous corner, a quarter turn of the image per step
+     */
+    private static void rotate(float[] values, int steps) {
+        for (int step = 0; step < steps; step++) {
+            float first = values[0];
+            values[0] = values[1];
+            values[1] = values[2];
+            values[2] = values[3];
+            values[3] = first;
+        }
+    }
+
+    /**
+     * Draw the chunks the camera can see
+     * @param camera the camera to draw through, already updated for this frame
+     */
+    public void render(OrthographicCamera camera) {
+        float halfWidth = camera.viewportWidth * camera.zoom / 2;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2;
+        int fromX = Math.max((int) Math.floor((camera.position.x - halfWidth) / chunkWidth), 0);
+        int fromY = Math.max((int) Math.floor((camera.position.y - halfHeight) / chunkHeight), 0);
+        int toX = Math.min((int) Math.floor((camera.position.x + halfWidth) / chunkWidth), chunksX - 1);
+        int toY = Math.min((int) Math.floor((camera.position.y + halfHeight) / chunkHeight), chunksY - 1);
+
+        drawnChunks = 0;
+        // Unlike SpriteBatch the cache leaves blending to the caller, the foreground layers need it
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        cache.setProjectionMatrix(camera.combined);
+        cache.begin();
+        for (int chunkY = fromY; chunkY <= toY; chunkY++) {
+            for (int chunkX = fromX; chunkX <= toX; chunkX++) {
+                int id = chunkCaches[chunkY * chunksX + chunkX];
+                if (id != -1) {
+                    cache.draw(id);
+                    drawnChunks++;
+                }
+            }
+        }
+        cache.end();
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    /**
+     * @return the number of chunks drawn by the last render
+     */
+    public int getDrawnChunks() {
+        return drawnChunks;
+    }
+
+    public void dispose() {
+        cache.dispose();
+    }
+}
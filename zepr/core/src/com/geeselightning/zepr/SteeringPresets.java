@@ -1,9 +1,10 @@
 package com.geeselightning.zepr;
 
-import com.badlogic.gdx.ai.steer.SteeringBehavior;
 import com.badlogic.gdx.ai.steer.behaviors.*;
 import com.badlogic.gdx.ai.steer.limiters.LinearAccelerationLimiter;
+import com.badlogic.gdx.ai.steer.limiters.LinearLimiter;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
 
 /**
@@ -15,10 +16,12 @@ public class SteeringPresets {
     /**
      * Wander presets for AI movement
      * @param steeringEntity the character to move
+     * @param random the generator the wandering is drawn from
      * @return wander preset
+     * #changed:   Wander draws from the given generator
      */
-    public static Wander<Vector2> getWander(Character steeringEntity) {
-        Wander<Vector2> wander = new Wander<>(steeringEntity)
+    public static Wander<Vector2> getWander(Character steeringEntity, RandomXS128 random) {
+        Wander<Vector2> wander = new SeededWander(steeringEntity, random)
                 .setFaceEnabled(false)
                 .setLimiter(new LinearAccelerationLimiter(1))
                 .setWanderOffset(3)
@@ -53,8 +56,24 @@ public class SteeringPresets {
         return arrive;
     }
 
-	public static SteeringBehavior<Vector2> getEvade(Character runner, Character target) {
+	public static Evade<Vector2> getEvade(Character runner, Character target) {
         Evade<Vector2> evade = new Evade<>(runner, target);
         return evade;
 	}
+
+    /**
+     * Flow field following for enemy movement around walls
+     * @param follower the enemy character that will move
+     * @param flowField the field to follow
+     * @return follow flow field preset
+     * #changed:   Added this preset
+     */
+    public static FollowFlowField<Vector2> getFollowFlowField(Character follower, FlowField flowField) {
+        // The speed limit is far above any character's, so the full acceleration is used like Seek does,
+        // and the character's own speed limit still applies when the steering is applied
+        FollowFlowField<Vector2> follow = new FollowFlowField<>(follower, flowField)
+                .setPredictionTime(0);
+        follow.setLimiter(new LinearLimiter(follower.getMaxLinearAcceleration(), 100));
+        return follow;
+    }
 }
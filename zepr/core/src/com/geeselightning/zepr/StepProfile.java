@@ -0,0 +1,100 @@
+package com.geeselightning.zepr;
+
+/**
+ * Time spent in each part of a simulation step, for finding which part stops scaling first as the number
+ * of characters grows. The simulation marks the end of each phase as it goes, so a phase's time is the
+ * time since the previous mark. Keeps the last step, the worst step and the total of every step.
+ * #changed:   Added this class
+ */
+public class StepProfile {
+
+    public enum Phase {
+        PHYSICS("physics"),
+        INDEX("spatial index"),
+        FLOWFIELD("flow field"),
+        AI("AI"),
+        MOVEMENT("movement"),
+        COMBAT("combat"),
+        DEATH("death"),
+        SPAWN("spawning"),
+        STEP("whole step");
+
+        public final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int PHASES = Phase.values().length;
+    private final long[] last = new long[PHASES];
+    private final long[] worst = new long[PHASES];
+    private final long[] total = new long[PHASES];
+    private long stepStart;
+    private long lastMark;
+    private int steps;
+
+    /**
+     * Start timing a step
+     */
+    public void begin() {
+        stepStart = System.nanoTime();
+        lastMark = stepStart;
+        for (int i = 0; i < PHASES; i++)
+            last[i] = 0;
+    }
+
+    /**
+     * Mark the end of a phase, everything since the last mark is counted towards it
+     * @param phase the phase that has just finished
+     */
+    public void mark(Phase phase) {
+        long now = System.nanoTime();
+        last[phase.ordinal()] += now - lastMark;
+        lastMark = now;
+    }
+
+    /**
+     * Finish timing a step, adding every phase to the totals
+     */
+    public void end() {
+        last[Phase.STEP.ordinal()] = System.nanoTime() - stepStart;
+        for (int i = 0; i < PHASES; i++) {
+            total[i] += last[i];
+            if (last[i] > worst[i])
+                worst[i] = last[i];
+        }
+        steps++;
+    }
+
+    /**
+     * @param phase the phase
+     * @return nanoseconds spent in the phase during the last step
+     */
+    public long getLast(Phase phase) {
+        return last[phase.ordinal()];
+    }
+
+    /**
+     * @param phase the phase
+     * @return the most nanoseconds spent in the phase in a single step
+     */
+    public long getWorst(Phase phase) {
+        return worst[phase.ordinal()];
+    }
+
+    /**
+     * @param phase the phase
+     * @return the mean nanoseconds spent in the phase per step
+     */
+    public double getAverage(Phase phase) {
+        return steps == 0 ? 0 : total[phase.ordinal()] / (double) steps;
+    }
+
+    /**
+     * @return the number of steps timed
+     */
+    public int getSteps() {
+        return steps;
+    }
+}
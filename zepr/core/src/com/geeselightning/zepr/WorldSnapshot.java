@@ -0,0 +1,188 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.utils.Array;
+import com.geeselightning.zepr.powerups.PowerUp;
+
+/**
+ * Everything the level screen draws, copied out of a LevelSimulation at the end of a step. The screen only
+ * reads snapshots, so the simulation can carry on stepping on another thread while a frame is drawn.
+ * Only the characters near the view are copied, found through the simulation's spatial indexes.
+ * Snapshots are reused, taking one allocates nothing once the entries for the largest crowd exist.
+ * #changed:   Added this class
+ */
+public class WorldSnapshot {
+
+    /**
+     * A character as it was at the end of the step, and where it was before it
+     */
+    public static class Entry {
+        TextureRegion region;
+        float previousX, previousY;
+        float x, y;
+        float width, height;
+        float originX, originY;
+        float scaleX, scaleY;
+        float rotation; // degrees
+        int health, maxHealth;
+
+        private float interpolate(float previous, float current, float alpha) {
+            return previous + (current - previous) * alpha;
+        }
+
+        /**
+         * Draw the character part way between the previous and current step, so movement looks smooth
+         * when frames and simulation steps don't line up
+         * @param batch the batch to draw with
+         * @param alpha how far from the previous (0) to the current (1) step to draw the character
+         */
+        public void draw(Batch batch, float alpha) {
+            if (region == null)
+                return;
+            batch.draw(region, interpolate(previousX, x, alpha), interpolate(previousY, y, alpha),
+                    originX, originY, width, height, scaleX, scaleY, rotation);
+        }
+
+        /**
+         * Add the character's health bar to the frame's bars, drawn where the character is drawn
+         * @param bars the health bars of the frame
+         * @param alpha how far from the previous (0) to the current (1) step the character is drawn
+         */
+        public void addHealthBar(HealthBars bars, float alpha) {
+            bars.add(interpolate(previousX, x, alpha), interpolate(previousY, y, alpha), health, maxHealth);
+        }
+
+        /**
+         * Test whether any part of the character or its health bar would be drawn inside the camera's view
+         * @param frustum the frustum of the camera, updated for this frame
+         * @param alpha how far from the previous (0) to the current (1) step the character is drawn
+         * @return true if the character needs drawing
+         */
+        public boolean isInFrustum(Frustum frustum, float alpha) {
+            // The sprite is scaled and rotated about its centre, half its scaled diagonal covers it at any angle
+            float radius = (float) Math.sqrt(width * width + height * height) / 2
+                    * Math.max(Math.abs(scaleX), Math.abs(scaleY));
+            // The health bar is drawn unscaled, 32 pixels wide along the top of the sprite
+            float halfWidth = Math.max(radius, 32 - width / 2);
+            float halfHeight = Math.max(radius, 35 - height / 2);
+            return frustum.boundsInFrustum(interpolate(previousX, x, alpha) + width / 2,
+                    interpolate(previousY, y, alpha) + height / 2, 0, halfWidth, halfHeight, 0);
+        }
+
+        /**
+         * @param alpha how far from the previous (0) to the current (1) step to take the position
+         * @return the x coordinate of the centre of the character where it is drawn
+         */
+        public float getCenterX(float alpha) {
+            // Matches Character.getCenterX(), which measures across by the height
+            return interpolate(previousX, x, alpha) + height / 2;
+        }
+
+        /**
+         * @param alpha how far from the previous (0) to the current (1) step to take the position
+         * @return the y coordinate of the centre of the character where it is drawn
+         */
+        public float getCenterY(float alpha) {
+            return interpolate(previousY, y, alpha) + width / 2;
+        }
+    }
+
+    final Entry player = new Entry();
+    private final Array<Entry> entries = new Array<>(); // characters near the view, the first size of them are in use
+    private int size;
+    private final Array<Zombie> nearView = new Array<>();
+
+    // The power up pick up, powerUpRegion is null when there is nothing to draw
+    TextureRegion powerUpRegion;
+    float powerUpX, powerUpY, powerUpWidth, powerUpHeight;
+
+    // HUD values
+    int wave;
+    int zombiesRemaining;
+    int playerHealth;
+    int survivors;
+    String powerUp;
+    String ability;
+
+    // Figures shown on the stress test level
+    long tick;
+    int characters; // every zombie and nonZombie in the level, near the view or not
+    int bodies;
+    int awakeBodies;
+    long stepNanos, aiNanos, physicsNanos;
+    long time; // System.nanoTime() when the snapshot was taken
+    int quality; // the number of Degradations in effect
+
+    /**
+     * Copy the simulation's state at the end of its last step
+     * @param simulation the simulation, which must not be stepped until this returns
+     * @param minX left edge of the area to copy characters from, in pixels
+     * @param minY bottom edge of the area to copy characters from
+     * @param maxX right edge of the area to copy characters from
+     * @param maxY top edge of the area to copy characters from
+     */
+    void capture(LevelSimulation simulation, float minX, float minY, float maxX, float maxY) {
+        Player simulated = simulation.getPlayer();
+        simulated.writeTo(player);
+
+        simulation.queryCharacters(minX, minY, maxX, maxY, nearView);
+        size = nearView.size;
+        while (entries.size < size)
+            entries.add(new Entry());
+        for (int i = 0; i < size; i++)
+            nearView.get(i).writeTo(entries.get(i));
+        nearView.clear();
+
+        // Only shown until it has been picked up
+        PowerUp currentPowerUp = simulation.getCurrentPowerUp();
+        if (currentPowerUp != null && !currentPowerUp.isActive()) {
+            powerUpRegion = currentPowerUp;
+            powerUpX = currentPowerUp.getX();
+            powerUpY = currentPowerUp.getY();
+            powerUpWidth = currentPowerUp.getWidth();
+            powerUpHeight = currentPowerUp.getHeight();
+        } else {
+            powerUpRegion = null;
+        }
+
+        wave = simulation.getCurrentWaveNumber();
+        zombiesRemaining = simulation.getZombiesRemaining();
+        playerHealth = simulated.health;
+        survivors = simulation.getSurvivors();
+        powerUp = PowerUp.activePowerUp;
+        if (simulated.ability)
+            ability = "Press E to trigger special ability";
+        else if (simulated.abilityUsed)
+            ability = simulated.abilityString;
+        else
+            ability = "Special ability used";
+
+        tick = simulation.getTick();
+        characters = simulation.getCharacters().size();
+        bodies = simulation.getBodyCount();
+        awakeBodies = simulation.getAwakeBodies();
+        StepProfile profile = simulation.getProfile();
+        stepNanos = profile.getLast(StepProfile.Phase.STEP);
+        aiNanos = profile.getLast(StepProfile.Phase.AI);
+        physicsNanos = profile.getLast(StepProfile.Phase.PHYSICS);
+        quality = simulation.getQuality();
+        time = System.nanoTime();
+    }
+
+    /**
+     * @return the number of characters copied, those near the view
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index between 0 and size() - 1
+     * @return a copied character
+     */
+    public Entry get(int index) {
+        return entries.get(index);
+    }
+}
@@ -1,7 +1,5 @@
 package com.geeselightning.zepr;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
@@ -10,7 +8,6 @@ import java.io.BufferedReader;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
-import com.badlogic.gdx.math.Vector2;
 import com.geeselightning.zepr.screens.LoadingScreen;
 import com.geeselightning.zepr.screens.MenuScreen;
 import com.geeselightning.zepr.screens.SelectLevelScreen;
@@ -23,7 +20,7 @@ public class Zepr extends Game {
 
 	//#changed:   Added this Location enum
 	public enum Location { MENU, STORY, SELECT, TOWN, HALIFAX, CENTRALHALL, COURTYARD,
-		GLASSHOUSE, CONSTANTINE, COMPLETE, MINIGAME }	
+		GLASSHOUSE, CONSTANTINE, COMPLETE, MINIGAME, STRESS }	
 
 	// The progress is the integer representing the last level completed. i.e. 3 for Town
 	public static Location progress;
@@ -32,16 +29,52 @@ public class Zepr extends Game {
 	public int[] maxScores = new int[6];
 	public int score = 0;
 	public int maxScore = 0;
+	private String replayPath; // recording to play instead of showing the menu, null to play normally
+	private String recordingPath; // file levels played are recorded to, null to not record them
+
+	public Zepr() {
+	}
+
+	/**
+	 * Constructor for the game when it should play back a recorded level once the assets have loaded
+	 * @param replayPath the file written by InputRecorder
+	 * #changed:   Added this constructor
+	 */
+	public Zepr(String replayPath) {
+		this(replayPath, null);
+	}
+
+	/**
+	 * Constructor for the game when it should play back a recording, record the levels played, or both
+	 * @param replayPath the file written by InputRecorder to play once the assets have loaded, null for none
+	 * @param recordingPath the file every level played is recorded to, replacing the last one, null to not record
+	 * #changed:   Added this constructor
+	 */
+	public Zepr(String replayPath, String recordingPath) {
+		this.replayPath = replayPath;
+		this.recordingPath = recordingPath;
+	}
+
+	/**
+	 * @return the file levels played are recorded to, null when they aren't recorded
+	 * #changed:   Added this method
+	 */
+	public String getRecordingPath() {
+		return recordingPath;
+	}
+
 	/**
 	 * Method to change the currently active screen
 	 * @param screen the Location to set as active
-	 * #changed:   Added more levels and new LevelConfig system to configure level values
+	 * #changed:   Added more levels and new LevelConfig system to configure level values.
+	 *             Level values moved to LevelConfig.forLocation() so they can be used without a window
 	 */
 	public void changeScreen(final Location screen) {
-		LevelConfig config;
 		Level level;
 		switch(screen) {
 			case MENU:
+				if (replayPath != null && playReplay())
+					break;
 				if (menuScreen == null) menuScreen = new MenuScreen(this);
 				    setScreen(menuScreen);
 				break;
@@ -54,145 +87,13 @@ public class Zepr extends Game {
 				setScreen(selectLevelScreen);
 				break;
 			case TOWN:
-				config = new LevelConfig() {{
-					level = 0;
-					mapLocation = "maps/townmap.tmx";
-					playerSpawn = new Vector2(530, 600);
-					powerSpawn = new Vector2(300, 300);
-					backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("town.mp3"));
-					zombieSpawnPoints = new ArrayList<>(
-				            Arrays.asList(new Vector2(200,200), new Vector2(700,700),
-				                    new Vector2(200,700), new Vector2(700,200)));
-					waves = new Wave[]{ new Wave(5, Zombie.Type.ZOMBIE1),
-                                        new Wave(10, Zombie.Type.ZOMBIE1),
-                                        new Wave(20, Zombie.Type.ZOMBIE1)};
-					location = screen;
-					nonZombieSpawnPoints = new ArrayList<>(
-				            Arrays.asList(new Vector2(550, 650)));
-					nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
-                            new Wave(1, Zombie.Type.NONZOMBIE2),
-                            new Wave(2, Zombie.Type.NONZOMBIE3)};
-				}};
-				level = new Level(this, config);
-				setScreen(level);
-				break;
 			case HALIFAX:
-				config = new LevelConfig() {{
-					level = 1;
-					mapLocation = "maps/halifaxmap.tmx";
-					playerSpawn = new Vector2(300, 300);
-					powerSpawn = new Vector2(200, 200);
-					backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("halifax.mp3")); 
-					zombieSpawnPoints = new ArrayList<>(
-							Arrays.asList(new Vector2(600,100), new Vector2(100,200),
-				                    new Vector2(600,500), new Vector2(100,600)));
-                    waves = new Wave[]{ new Wave(10, Zombie.Type.ZOMBIE1),
-                                        new Wave(15, Zombie.Type.ZOMBIE1),
-                                        new Wave(20, Zombie.Type.ZOMBIE2)};
-					location = screen;
-					nonZombieSpawnPoints = new ArrayList<>(
-				            Arrays.asList(new Vector2(350, 350)));
-					nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
-                            new Wave(1, Zombie.Type.NONZOMBIE2),
-                            new Wave(2, Zombie.Type.NONZOMBIE3)};
-				}};						 
-				level = new Level(this, config);
-				setScreen(level);
-				break;
 			case CENTRALHALL:
-				config = new LevelConfig() {{
-					level = 2;
-					mapLocation = "maps/centralhallmap.tmx";
-					playerSpawn = new Vector2(50, 900);
-					powerSpawn = new Vector2(250, 250);
-					backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("central.mp3"));
-					zombieSpawnPoints = new ArrayList<>(
-							 Arrays.asList(new Vector2(120,100), new Vector2(630,600),
-					                   new Vector2(630,100), new Vector2(120,500)));
-                    waves = new Wave[]{ new Wave(13, Zombie.Type.ZOMBIE2),
-                                        new Wave(17, Zombie.Type.ZOMBIE2),
-                                        new Wave(1, Zombie.Type.BOSS1)};
-					location = screen;
-					nonZombieSpawnPoints = new ArrayList<>(
-				            Arrays.asList(new Vector2(50, 850)));
-					nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
-                            new Wave(1, Zombie.Type.NONZOMBIE2),
-                            new Wave(2, Zombie.Type.NONZOMBIE3)};
-				}};						 
-				level = new Level(this, config);
-				setScreen(level);
-				break;
 			case COURTYARD:
-				config = new LevelConfig() {{
-					level = 3;
-					mapLocation = "maps/courtyard.tmx";
-					playerSpawn = new Vector2(300, 300);
-					powerSpawn = new Vector2(150, 150);
-					backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("courtyard.mp3"));
-					zombieSpawnPoints = new ArrayList<>(
-							 Arrays.asList(new Vector2(120,100), new Vector2(630,600),
-					                   new Vector2(630,100), new Vector2(120,500)));
-                    waves = new Wave[]{ new Wave(12, Zombie.Type.ZOMBIE2),
-                                        new Wave(12, Zombie.Type.ZOMBIE2),
-                                        new Wave(12, Zombie.Type.ZOMBIE3),
-                                        new Wave(16, Zombie.Type.ZOMBIE3)};
-					location = screen;
-					nonZombieSpawnPoints = new ArrayList<>(
-				            Arrays.asList(new Vector2(360, 350)));
-					nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
-                            new Wave(1, Zombie.Type.NONZOMBIE2),
-                            new Wave(2, Zombie.Type.NONZOMBIE3),
-                            new Wave(2, Zombie.Type.NONZOMBIE3)};
-				}};
-				level = new Level(this, config);
-				setScreen(level);
-				break;
 			case GLASSHOUSE:
-				config = new LevelConfig() {{
-					level = 4;
-					mapLocation = "maps/glasshousemap.tmx";
-					playerSpawn = new Vector2(400, 70);
-					powerSpawn = new Vector2(250, 250);
-					backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("glasshouse.mp3"));
-					zombieSpawnPoints = new ArrayList<>(
-							 Arrays.asList(new Vector2(120,200), new Vector2(630,600),
-					                   new Vector2(630,100), new Vector2(120,500)));
-                    waves = new Wave[]{ new Wave(12, Zombie.Type.ZOMBIE3),
-                                        new Wave(20, Zombie.Type.ZOMBIE3),
-                                        new Wave(30, Zombie.Type.ZOMBIE3)};
-					location = screen;
-					nonZombieSpawnPoints = new ArrayList<>(
-				            Arrays.asList(new Vector2(450, 100)));
-					nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
-                            new Wave(1, Zombie.Type.NONZOMBIE2),
-                            new Wave(2, Zombie.Type.NONZOMBIE3)};
-				}};
-				level = new Level(this, config);
-				setScreen(level);
-				break;
 			case CONSTANTINE:
-				config = new LevelConfig() {{
-					level = 5;
-					mapLocation = "maps/constantinemap.tmx";
-					playerSpawn = new Vector2(300, 300);
-					powerSpawn = new Vector2(250, 250);
-					backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("constantine.mp3"));
-					zombieSpawnPoints = new ArrayList<>(
-							 Arrays.asList(new Vector2(120,100), new Vector2(630,600),
-					                   new Vector2(630,100), new Vector2(120,500)));
-                    waves = new Wave[]{ new Wave(40, Zombie.Type.ZOMBIE1),
-                                        new Wave(30, Zombie.Type.ZOMBIE2),
-                                        new Wave(20, Zombie.Type.ZOMBIE3),
-                                        new Wave(1, Zombie.Type.BOSS2)};
-					location = screen;
-					nonZombieSpawnPoints = new ArrayList<>(
-				            Arrays.asList(new Vector2(320, 350)));
-					nonZombieWaves = new Wave[]{ new Wave(5, Zombie.Type.NONZOMBIE1),
-                            new Wave(1, Zombie.Type.NONZOMBIE2),
-                            new Wave(2, Zombie.Type.NONZOMBIE3),
-                            new Wave(2, Zombie.Type.NONZOMBIE3)};
-				}};	
-				level = new Level(this, config);
+			case STRESS:
+				level = new Level(this, LevelConfig.forLocation(screen));
 				setScreen(level);
 				break;
 			case MINIGAME:
@@ -202,6 +103,23 @@ public class Zepr extends Game {
 		}
 	}
 
+	/**
+	 * Open the recording given on the command line and play it, only the first time the menu is reached
+	 * @return true if the replay is playing
+	 * #changed:   Added this method
+	 */
+	private boolean playReplay() {
+		String path = replayPath;
+		replayPath = null;
+		try {
+			setScreen(new Level(this, InputReplay.open(new File(path))));
+			return true;
+		} catch (IOException e) {
+			Gdx.app.error("Replay", "Could not open " + path, e);
+			return false;
+		}
+	}
+
 	/**
 	 * Create event run when the class is constructed, loading save data if it exists.
 	 * #changed:   Added code to load save data and to create it if not existent yet
@@ -246,10 +164,11 @@ public class Zepr extends Game {
 
 
 	/**
-	 * #changed:   Added this method to dispose of the sound manager
+	 * #changed:   Added this method to dispose of the sound manager and the shared sprite images
 	 */
 	@Override
 	public void dispose() {
 		manager.dispose();
+		Sprites.dispose();
 	}
 }
\ No newline at end of file
@@ -1,13 +1,29 @@
 package com.geeselightning.zepr;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
 
-public class ZeprInputProcessor implements InputProcessor {
+/**
+ * #changed:  Now also provides the player controls to the level simulation from the keyboard and mouse
+ */
+public class ZeprInputProcessor implements InputProcessor, PlayerInput {
 
     private Vector2 mousePosition = new Vector2(0, 0);
+    private OrthographicCamera camera;
+    private boolean attackPressed = false;
+    private final Vector3 screenCoordinates = new Vector3();
 
+    /**
+     * Constructor for the input processor
+     * @param camera the camera used to convert the mouse position into world coordinates
+     */
+    public ZeprInputProcessor(OrthographicCamera camera) {
+        this.camera = camera;
+    }
 
     /**
      * #changed:  Moved player movement code from here to the Player class
@@ -40,7 +56,7 @@ public class ZeprInputProcessor implements InputProcessor {
      */
     @Override
     public boolean touchDown(int screenX, int screenY, int pointer, int button) {
-    	Level.getPlayer().setAttackReady(true);
+    	attackPressed = true;
     	Sound sound = Zepr.manager.get("Quack.wav", Sound.class);
         sound.play();
         return true;
@@ -57,8 +73,7 @@ public class ZeprInputProcessor implements InputProcessor {
      */
     @Override
     public boolean touchUp(int screenX, int screenY, int pointer, int button) {
-    	Level.getPlayer().setAttackReady(false);
-    	Level.getPlayer().attackTime = 0;
+    	attackPressed = false;
     	return true;
     }
 
@@ -84,4 +99,31 @@ public class ZeprInputProcessor implements InputProcessor {
     public boolean scrolled(int amount) {
         return false;
     }
+
+    @Override
+    public void update() {
+    }
+
+    @Override
+    public boolean isKeyPressed(int keycode) {
+        return Gdx.input.isKeyPressed(keycode);
+    }
+
+    @Override
+    public boolean isAttackPressed() {
+        return attackPressed;
+    }
+
+    /**
+     * Converts the mouse position within the game window to the equivalent coordinates in the world.
+     * #changed:   Moved here from Level
+     */
+    @Override
+    public boolean getAim(Vector2 out) {
+        // Must first convert to 3D vector as camera.unproject() does not take 2D vectors.
+        screenCoordinates.set(Gdx.input.getX(), Gdx.input.getY(), 0);
+        camera.unproject(screenCoordinates);
+        out.set(screenCoordinates.x, screenCoordinates.y);
+        return true;
+    }
 }
@@ -1,19 +1,34 @@
 package com.geeselightning.zepr;
 
-import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.ai.steer.behaviors.Evade;
+import com.badlogic.gdx.ai.steer.behaviors.FollowFlowField;
+import com.badlogic.gdx.ai.steer.behaviors.Seek;
+import com.badlogic.gdx.ai.steer.behaviors.Wander;
 import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Pool;
 
-public class Zombie extends Character {
+public class Zombie extends Character implements Pool.Poolable {
 
     private int hitRange;
     public boolean isZombie;
-    public Character closestAttackable = Level.getPlayer();
+    public Character closestAttackable;
+    private boolean targetInRange = false; // Whether closestAttackable could be hit, worked out in think()
+    AITier aiTier = AITier.NEAR; // How often the AI runs, chosen by AIPhase every step
+    int stepsSinceThink = Integer.MAX_VALUE; // Steps since think() last ran, starts high so a new zombie thinks at once
+    // Steering behaviours are kept for the zombie's lifetime and retargeted instead of being rebuilt every step
+    private final Seek<Vector2> seek;
+    private final Evade<Vector2> evade;
+    private final Wander<Vector2> wander;
+    private final FollowFlowField<Vector2> follow;
     public enum Type { ZOMBIE1, ZOMBIE2, ZOMBIE3, NONZOMBIE1, NONZOMBIE2, NONZOMBIE3, BOSS1, BOSS2 }
     private Type currentType;
-    private Texture normalTexture;
-    private Texture attackTexture;
+    // The zombie's entity in the level simulation, kept with the zombie while it is pooled
+    final Entity entity = new Entity();
 
     /**
      * Constructor for the Zombie class
@@ -24,85 +39,143 @@ public class Zombie extends Character {
      *            Hitrange now scales with sprite size. Box2D body code added.
      */
     public Zombie(Vector2 zombieSpawn, World world, Type type) {
+        this(world, new RandomXS128());
+        spawn(zombieSpawn, type, MathUtils.random());
+    }
+
+    /**
+     * Create a zombie with its sprite and Box2D body but no type or position, used by ZombiePool.
+     * spawn() must be called before the zombie is used.
+     * @param world the Box2D world to add the zombie to
+     * @param wanderRandom the generator the zombie's wandering is drawn from
+     * #changed:   Added this constructor, moving the type code to spawn()
+     */
+    Zombie(World world, RandomXS128 wanderRandom) {
         super(world);
 
+        // Every type shares the body size of the first zombie sprite
+        setImages("zombie01", "zombie01_attack");
+		set(new Sprite(normalRegion));
+
+        body.setFixedRotation(true);
+        body.setLinearDamping(50f);
+
+        entity.add(new CharacterComponent(this));
+
+        seek = SteeringPresets.getSeek(this, null);
+        evade = SteeringPresets.getEvade(this, null);
+        wander = SteeringPresets.getWander(this, wanderRandom);
+        follow = SteeringPresets.getFollowFlowField(this, null);
+    }
+
+    /**
+     * Bring the zombie into play as a given type, resetting everything left from any previous use
+     * @param zombieSpawn the coordinates to spawn the zombie at
+     * @param type the type of zombie to spawn
+     * @param attackOffset between 0 and 1, how far into its attack cooldown the zombie starts
+     * #changed:   Added this method, moving code from the constructor so pooled zombies can be reused
+     */
+    void spawn(Vector2 zombieSpawn, Type type, float attackOffset) {
         speed = Constant.ZOMBIESPEED;
         attackDamage = Constant.ZOMBIEDMG;
         maxhealth = Constant.ZOMBIEMAXHP;
         currentType = type;
-        
-        hitRefresh = (float) Math.random(); // Added to prevent all zombies from attacking at the same time
+        setScale(1);
+        direction = 0;
+
+        hitRefresh = attackOffset; // Added to prevent all zombies from attacking at the same time
 
-		set(new Sprite(new Texture("zombie01.png")));
         setType();
 
-        body.setFixedRotation(true);
-        body.setLinearDamping(50f);
+        body.setActive(true);
+        body.setLinearVelocity(0, 0);
+        body.setAngularVelocity(0);
         // Added by Shaun of the Devs to allow speed change
         setMaxLinearSpeed(speed);
         setCharacterPosition(zombieSpawn);
 
         hitRange = (int) (Constant.ZOMBIERANGE*getScaleX()*getWidth()/25 - getWidth()*getHealth()/1200);
     }
+
+    /**
+     * Take the zombie out of play when it is returned to the pool. The body is kept but stops colliding.
+     * #changed:   Added this method
+     */
+    @Override
+    public void reset() {
+        body.setActive(false);
+        closestAttackable = null;
+        targetInRange = false;
+        steeringBehavior = null;
+        seek.setTarget(null);
+        evade.setTarget(null);
+        follow.setFlowField(null);
+        stepsSinceThink = Integer.MAX_VALUE;
+        dormant = false;
+    }
     
     // Moved to method by Shaun of the Devs to make type changing easier
+    //#changed:   The images are acquired from the shared Sprites cache instead of being loaded for every zombie.
+    //            Also sets the faction component of the entity
     public void setType() {
+        String normalName = null;
+        String attackName = null;
     	switch(currentType) {
     		case ZOMBIE1:
     			speed *= 1;
     			attackDamage *= 1;
     			maxhealth *= 1;
     			isZombie = true;
-    			normalTexture = new Texture("zombie01.png");
-    			attackTexture = new Texture("zombie01_attack.png");
+    			normalName = "zombie01";
+    			attackName = "zombie01_attack";
     			break;
     		case ZOMBIE2:
     			speed *= 1.2f;
     			attackDamage *= 2;
     			maxhealth *= 2;
     			isZombie = true;
-    			normalTexture = new Texture("zombie02.png");
-    			attackTexture = new Texture("zombie02_attack.png");
+    			normalName = "zombie02";
+    			attackName = "zombie02_attack";
     			break;
     		case ZOMBIE3:
     			speed *= 2;
     			attackDamage *= 3;
     			maxhealth *= 1;
     			isZombie = true;
-    			normalTexture = new Texture("zombie03.png");
-    			attackTexture = new Texture("zombie03_attack.png");
+    			normalName = "zombie03";
+    			attackName = "zombie03_attack";
     			break;
     		case NONZOMBIE1:
     			speed *= 1;
     			attackDamage *= 1;
     			maxhealth *= 0.5;
     			isZombie = false;
-    			normalTexture = new Texture("player01.png");
-    			attackTexture = new Texture("player01.png");
+    			normalName = "player01";
+    			attackName = "player01";
         		break;
     		case NONZOMBIE2:
     			speed *= 1.2f;
     			attackDamage *= 2;
     			maxhealth *= 1;
     			isZombie = false;
-    			normalTexture = new Texture("player02.png");
-    			attackTexture = new Texture("player02.png");
+    			normalName = "player02";
+    			attackName = "player02";
     			break;
     		case NONZOMBIE3:
     			speed *= 2;
     			attackDamage *= 3;
     			maxhealth *= 0.5;
     			isZombie = false;
-    			normalTexture = new Texture("player02.png");
-    			attackTexture = new Texture("player02.png");
+    			normalName = "player02";
+    			attackName = "player02";
     			break;
             case BOSS1:
                 speed *= 100;
                 attackDamage *= 2;
                 maxhealth *= 5;
                 isZombie = true;
-                normalTexture = new Texture("GeeseLightningBoss.png");
-                attackTexture = new Texture("GeeseLightningBoss.png");
+                normalName = "GeeseLightningBoss";
+                attackName = "GeeseLightningBoss";
                 setScale(2);
                 break;
             case BOSS2:
@@ -110,16 +183,45 @@ public class Zombie extends Character {
                 attackDamage *= 1;
                 maxhealth *= 5;
                 isZombie = true;
-                normalTexture = new Texture("JJBossZombie.png");
-                attackTexture = new Texture("JJBossZombie_attack.png");
+                normalName = "JJBossZombie";
+                attackName = "JJBossZombie_attack";
                 setScale(2);
                 break;
     	}
 
+        // The images are already loaded unless this is the first character to use them, so this is a pointer swap
+        setImages(normalName, attackName);
+        setRegion(normalRegion);
+
+        // Changing side only swaps the faction component, the systems pick the change up from their families
+        if (isZombie) {
+            entity.remove(HumanComponent.class);
+            entity.add(ZombieComponent.TAG);
+        } else {
+            entity.remove(ZombieComponent.class);
+            entity.add(HumanComponent.TAG);
+        }
+
         health = maxhealth;
         setMaxLinearSpeed(speed);
     }
     
+    /**
+     * @param type a type of character
+     * @return true if characters of the type spawn on the zombie side
+     * #changed:   Added this method so spawns can be counted before the character exists
+     */
+    static boolean isZombieType(Type type) {
+        switch (type) {
+            case NONZOMBIE1:
+            case NONZOMBIE2:
+            case NONZOMBIE3:
+                return false;
+            default:
+                return true;
+        }
+    }
+
     // Added by Shaun of the Devs
     // Allows zombies to switch between zombie and nonZombie
     public void switchType() {
@@ -166,18 +268,126 @@ public class Zombie extends Character {
      * @param delta the time between the start of the previous call and now
      */
     public void attack(Character character, float delta) {
-        if (canHitGlobal(character, hitRange) && hitRefresh > Constant.ZOMBIEHITCOOLDOWN) {
+        resolveAttack(character, canHitGlobal(character, hitRange), delta);
+    }
+
+    /**
+     * Attack closestAttackable using the range check made in think()
+     * @param delta the time between the start of the previous call and now
+     * #changed:   Added this method
+     */
+    void attackTarget(float delta) {
+        // Targets that died earlier in the step have already been removed from play
+        boolean canHit = targetInRange && closestAttackable.getHealth() > 0;
+        resolveAttack(closestAttackable, canHit, delta);
+    }
+
+    private void resolveAttack(Character character, boolean canHit, float delta) {
+        if (canHit && hitRefresh > Constant.ZOMBIEHITCOOLDOWN) {
             character.takeDamage(attackDamage);
             hitRefresh = 0;
         } else
             hitRefresh += delta;
     }
 
+    /**
+     * Decide how to move and whether closestAttackable is in reach, calculating the steering for this step.
+     * Only reads state, so it is run for all zombies and nonZombies at once by AIPhase.
+     * Wandering draws from the simulation's wander generator, so it is left to update() where zombies run in order.
+     * @param flowField a field leading to one character, followed instead of seeking when that character
+     *                  is the target and there is a path to follow, can be null
+     * #changed:  Added this method, moving the steering behaviour choice from update()
+     */
+    void think(FlowField flowField) {
+        if ((closestAttackable != null) && isZombie) {
+            if (flowField != null && flowField.getTarget() == closestAttackable && flowField.lookup(getPosition()) != null) {
+                // follow the path around walls, shared by every zombie chasing the same character
+                follow.setFlowField(flowField);
+                this.steeringBehavior = follow;
+            } else {
+                // seek out player using gdx-ai seek functionality
+                seek.setTarget(closestAttackable);
+                this.steeringBehavior = seek;
+            }
+            this.currentMode = SteeringState.SEEK;
+            // update direction to face the player
+            direction = getDirectionTo(closestAttackable.getCenterX(), closestAttackable.getCenterY());
+        } else if((closestAttackable != null) && !isZombie){
+            evade.setTarget(closestAttackable);
+            this.steeringBehavior = evade;
+            this.currentMode = SteeringState.EVADE;
+            direction = -(this.vectorToAngle(this.getLinearVelocity()));
+        }else { //player cannot be seen, so wander randomly
+            this.steeringBehavior = wander;
+            this.currentMode = SteeringState.WANDER;
+            // update direction to face direction of travel
+            direction = -(this.vectorToAngle(this.getLinearVelocity()));
+        }
+
+        // Off screen characters with nothing to chase, or nothing close enough to run from, stop moving
+        // so their bodies can sleep. Zombies keep chasing whatever they are after however far it is
+        dormant = aiTier != AITier.NEAR && (closestAttackable == null
+                || (!isZombie && !isWithin(closestAttackable, Constant.DORMANTDISTANCE)));
+
+        if (currentMode != SteeringState.WANDER && !dormant)
+            calculateSteering();
+
+        targetInRange = closestAttackable != null && canHitGlobal(closestAttackable, hitRange);
+    }
+
+    /**
+     * @return true if the snapshots of this and the character are within distance pixels of each other
+     */
+    private boolean isWithin(Character character, float distance) {
+        float limit = distance / Constant.PHYSICSDENSITY;
+        return getPosition().dst2(character.getPosition()) < limit * limit;
+    }
+
+    @Override
+    void addTo(StateHash hash) {
+        super.addTo(hash);
+        hash.add(currentType.ordinal());
+        hash.add(dormant);
+    }
+
+    /**
+     * Wake the zombie, making it think again on the next step
+     * #changed:   Added this method
+     */
+    @Override
+    void wake() {
+        if (dormant)
+            stepsSinceThink = Integer.MAX_VALUE;
+        super.wake();
+    }
+
+    /**
+     * Keep the target and steering from the last think() for another step, only checking the target is
+     * still in range. Used by AIPhase for characters in a lower AI tier.
+     * @return false if the target has changed side, died or can't be seen, so think() must run instead
+     * #changed:   Added this method
+     */
+    boolean reuseThought() {
+        if (closestAttackable instanceof Player) {
+            Player player = (Player) closestAttackable;
+            if (player.isZombie == isZombie || !player.isVisible())
+                return false;
+        } else if (closestAttackable != null && ((Zombie) closestAttackable).isZombie == isZombie)
+            return false;
+        if (closestAttackable != null && closestAttackable.getHealth() <= 0)
+            return false;
+
+        targetInRange = closestAttackable != null && canHitGlobal(closestAttackable, hitRange);
+        reuseSteering();
+        return true;
+    }
+
     /**
      * Method to update positional and action behavior
      * @param delta the time between the start of the previous call and now
      * #changed:  Code to remove from aliveZombies list when dead now moved to Level
      *            Added LibGDX AI steering behaviour and wandering when player undetected.
+     *            The steering behaviour is now chosen in think(), this applies it
      */
     @Override
     public void update(float delta) {
@@ -186,30 +396,13 @@ public class Zombie extends Character {
         
         // Added by Shaun of the Devs for attack period, gives player more feedback on attacks
         if (hitRefresh > Constant.ZOMBIEHITCOOLDOWN) {
-        	setTexture(attackTexture);
+        	setRegion(attackRegion);
         } else {
-        	setTexture(normalTexture);
+        	setRegion(normalRegion);
         }
         
         if (hitRefresh > Constant.ZOMBIECOOLDOWNRESET) {
         	hitRefresh = 0;
         }
-
-        if ((closestAttackable != null) && isZombie) {
-            // seek out player using gdx-ai seek functionality
-            this.steeringBehavior = SteeringPresets.getSeek(this, closestAttackable);
-            this.currentMode = SteeringState.SEEK;
-            // update direction to face the player
-            direction = getDirectionTo(closestAttackable.getCenter());
-        } else if((closestAttackable != null) && !isZombie){
-            this.steeringBehavior = SteeringPresets.getEvade(this, closestAttackable);
-            this.currentMode = SteeringState.EVADE;
-            direction = -(this.vectorToAngle(this.getLinearVelocity()));
-        }else { //player cannot be seen, so wander randomly
-            this.steeringBehavior = SteeringPresets.getWander(this);
-            this.currentMode = SteeringState.WANDER;
-            // update direction to face direction of travel
-            direction = -(this.vectorToAngle(this.getLinearVelocity()));
-        }
     }
 }
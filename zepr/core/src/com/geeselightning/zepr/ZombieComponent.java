@@ -0,0 +1,13 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.ashley.core.Component;
+
+/**
+ * Marks a character as being on the zombie side. Swapped with HumanComponent when the character changes side.
+ * #changed:   Added this class
+ */
+public class ZombieComponent implements Component {
+
+    // Holds no data, so every entity shares one instance
+    static final ZombieComponent TAG = new ZombieComponent();
+}
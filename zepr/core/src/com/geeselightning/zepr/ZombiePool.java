@@ -0,0 +1,101 @@
+package com.geeselightning.zepr;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Keeps zombies that have died so they can be spawned again in later waves, saving the cost of a new
+ * Box2D body and texture loads. Freed zombies keep their body but it is deactivated so it takes no
+ * part in the physics.
+ * #changed:   Added this class
+ */
+public class ZombiePool extends Pool<Zombie> {
+
+    private final World world;
+    private final RandomXS128 random; // Staggers the attacks of spawned zombies
+    private final RandomXS128 wanderRandom; // Shared by the wandering of every zombie the pool creates
+    private int hits; // spawns that reused a pooled zombie
+    private int misses; // spawns that had to create a new zombie
+    private int inUse;
+    private int highWaterMark; // the most zombies that have been in use at once
+
+    /**
+     * Constructor for the pool
+     * @param world the Box2D world new zombies are created in
+     */
+    public ZombiePool(World world) {
+        this(world, new RandomXS128(), new RandomXS128());
+    }
+
+    /**
+     * Constructor for the pool
+     * @param world the Box2D world new zombies are created in
+     * @param random the generator used when spawning zombies
+     * @param wanderRandom the generator the zombies' wandering is drawn from
+     */
+    public ZombiePool(World world, RandomXS128 random, RandomXS128 wanderRandom) {
+        super(64);
+        this.world = world;
+        this.random = random;
+        this.wanderRandom = wanderRandom;
+    }
+
+    @Override
+    protected Zombie newObject() {
+        return new Zombie(world, wanderRandom);
+    }
+
+    /**
+     * Get a zombie from the pool, or a new one if the pool is empty, and spawn it
+     * @param zombieSpawn the coordinates to spawn the zombie at
+     * @param type the type of zombie to spawn
+     * @return the spawned zombie
+     */
+    public Zombie obtain(Vector2 zombieSpawn, Zombie.Type type) {
+        if (getFree() > 0)
+            hits++;
+        else
+            misses++;
+
+        Zombie zombie = obtain();
+        zombie.spawn(zombieSpawn, type, random.nextFloat());
+
+        inUse++;
+        highWaterMark = Math.max(highWaterMark, inUse);
+        return zombie;
+    }
+
+    /**
+     * Return a zombie that has left play to the pool
+     * @param zombie the zombie to return
+     */
+    @Override
+    public void free(Zombie zombie) {
+        inUse--;
+        super.free(zombie);
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Dispose of every zombie waiting in the pool, destroying their bodies and textures
+     */
+    public void dispose() {
+        // Pool keeps its free list to itself, so the zombies are taken back out to be disposed
+        while (getFree() > 0)
+            obtain().dispose();
+        clear();
+    }
+}
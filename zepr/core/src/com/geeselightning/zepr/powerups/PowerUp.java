@@ -1,30 +1,32 @@
 package com.geeselightning.zepr.powerups;
 
 import com.badlogic.gdx.graphics.g2d.Sprite;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.math.Rectangle;
-import com.geeselightning.zepr.Level;
+import com.geeselightning.zepr.LevelSimulation;
 import com.geeselightning.zepr.Player;
+import com.geeselightning.zepr.Sprites;
 
 public class PowerUp extends Sprite {
 
-    private Level currentLevel;
+    private LevelSimulation currentLevel;
     public static boolean active;
     private float timeRemaining;
     private float effectDuration;
     protected Player player;
     public String powerUpString;
     public static String activePowerUp;
+    private final String image;
 
     /**
      * Constructor for the generic power up class
-     * @param texture the texture to display for the pick up
-     * @param currentLevel the instance of Level to spawn the power up in
+     * @param image the name of the image to display for the pick up, acquired from Sprites until dispose()
+     * @param currentLevel the simulation of the level to spawn the power up in
      * @param player player instance to pick up and apply the power up to
-     * #changed:   Added power up text string and effectDuration system
+     * #changed:   Added power up text string and effectDuration system. Takes a shared Sprites image instead of a texture
      */
-    PowerUp(Texture texture, Level currentLevel, Player player, float effectDuration, String powerUpString) {
-        super(new Sprite(texture));
+    PowerUp(String image, LevelSimulation currentLevel, Player player, float effectDuration, String powerUpString) {
+        super(Sprites.acquire(image));
+        this.image = image;
         this.currentLevel = currentLevel;
         this.effectDuration = effectDuration;
         // Tests pass a null currentLevel
@@ -32,6 +34,8 @@ public class PowerUp extends Sprite {
             setPosition(currentLevel.getConfig().powerSpawn.x, currentLevel.getConfig().powerSpawn.y);
         this.player = player;
         activePowerUp = "No PowerUp Collected";
+        // active is shared by every power up, don't let one from an earlier level leave it set
+        active = false;
         
         this.powerUpString = powerUpString;
         
@@ -86,4 +90,12 @@ public class PowerUp extends Sprite {
     public boolean isActive() {
         return active;
     }
+
+    /**
+     * Give back the power up image once the power up is no longer in play
+     * #changed:   Added this method
+     */
+    public void dispose() {
+        Sprites.release(image);
+    }
 }
@@ -4,14 +4,13 @@
 
 package com.geeselightning.zepr.powerups;
 
-import com.badlogic.gdx.graphics.Texture;
 import com.geeselightning.zepr.Constant;
-import com.geeselightning.zepr.Level;
+import com.geeselightning.zepr.LevelSimulation;
 import com.geeselightning.zepr.Player;
 
 public class PowerUpCure extends PowerUp {
 
-	private Level level;
+	private LevelSimulation level;
 	private Player player;
 	
     /**
@@ -19,8 +18,8 @@ public class PowerUpCure extends PowerUp {
      * @param currentLevel level to spawn the power up in
      * @param player player to monitor for pick up event and to apply the effect to
      */
-    public PowerUpCure(Level currentLevel, Player player) {
-        super(new Texture("cure.png"), currentLevel, player, 0, "Cure PowerUp Collected");
+    public PowerUpCure(LevelSimulation currentLevel, Player player) {
+        super("cure", currentLevel, player, 0, "Cure PowerUp Collected");
         level = currentLevel;
         this.player = player;
     }
@@ -1,8 +1,7 @@
 package com.geeselightning.zepr.powerups;
 
-import com.badlogic.gdx.graphics.Texture;
 import com.geeselightning.zepr.Constant;
-import com.geeselightning.zepr.Level;
+import com.geeselightning.zepr.LevelSimulation;
 import com.geeselightning.zepr.Player;
 
 public class PowerUpInstaKill extends PowerUp {
@@ -12,8 +11,8 @@ public class PowerUpInstaKill extends PowerUp {
      * @param currentLevel level to spawn the power up in
      * @param player player to monitor for pick up event and to apply the effect to
      */
-    public PowerUpInstaKill(Level currentLevel, Player player) {
-        super(new Texture("instakill.png"), currentLevel, player, Constant.INSTAKILLTIME, "InstaKill PowerUp Collected");
+    public PowerUpInstaKill(LevelSimulation currentLevel, Player player) {
+        super("instakill", currentLevel, player, Constant.INSTAKILLTIME, "InstaKill PowerUp Collected");
     }
 
     /**
@@ -22,10 +22,12 @@ public class LoadingScreen implements Screen {
 
     /**
      * Sounds for the game are loaded here.
-     * #changed:   Added this method
+     * #changed:   Added this method. The manager is only created once, so loading the sounds again keeps
+     *             everything already loaded through it
      */
     public static void loadSounds() {
-        Zepr.manager = new AssetManager();
+        if (Zepr.manager == null)
+            Zepr.manager = new AssetManager();
         Zepr.manager.load("Quack.wav", Sound.class);
         Zepr.manager.load("zombie_take_dmg.wav", Sound.class);
         Zepr.manager.finishLoading();
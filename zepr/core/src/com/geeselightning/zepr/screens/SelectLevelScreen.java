@@ -83,6 +83,7 @@ public class SelectLevelScreen implements Screen {
         TextButton load = new TextButton("Load", skin);
         TextButton back = new TextButton("Back", skin);
         TextButton minigame = new TextButton("Mini Game", skin);
+        TextButton stress = new TextButton("Stress Test", skin);
 
         // Creating stage descriptions.
         Label title = new Label("Choose a stage and character.", skin, "subtitle");
@@ -164,6 +165,7 @@ public class SelectLevelScreen implements Screen {
 
         bottomTable.bottom();
         bottomTable.add(minigame).pad(10);
+        bottomTable.add(stress).pad(10);
         bottomTable.add(play).pad(10).center();
 
         // Adding button logic.
@@ -342,6 +344,15 @@ public class SelectLevelScreen implements Screen {
         	}
         	
         });
+
+        // Defining actions for the stress test button, it needs a character like the play button
+        stress.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                if (playerSet)
+                    parent.changeScreen(Location.STRESS);
+            }
+        });
       }
 
 
@@ -2,15 +2,30 @@ package com.geeselightning.zepr.desktop;
 
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.geeselightning.zepr.Constant;
 import com.geeselightning.zepr.Zepr;
 
+/**
+ * #changed:   A recording written by InputRecorder can be given as an argument to watch it again,
+ *             the arrow keys jump between its keyframes. "--record" followed by an optional file
+ *             (default Constant.REPLAYFILE) records every level played to that file
+ */
 public class DesktopLauncher {
 	public static void main (String[] arg) {
+		String replayPath = null;
+		String recordingPath = null;
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].equals("--record"))
+				recordingPath = i + 1 < arg.length && !arg[i + 1].startsWith("--") ? arg[++i] : Constant.REPLAYFILE;
+			else
+				replayPath = arg[i];
+		}
+
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
 		config.resizable = true;
 		config.width = 1366;
 		config.height = 768;
 		config.title = "ZEPR";
-		new LwjglApplication(new Zepr(), config);
+		new LwjglApplication(new Zepr(replayPath, recordingPath), config);
 	}
 }
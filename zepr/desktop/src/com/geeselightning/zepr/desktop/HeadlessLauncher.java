@@ -0,0 +1,213 @@
+package com.geeselightning.zepr.desktop;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.geeselightning.zepr.AITier;
+import com.geeselightning.zepr.Constant;
+import com.geeselightning.zepr.InputRecorder;
+import com.geeselightning.zepr.InputReplay;
+import com.geeselightning.zepr.LevelConfig;
+import com.geeselightning.zepr.LevelSimulation;
+import com.geeselightning.zepr.Player;
+import com.geeselightning.zepr.PlayerInput;
+import com.geeselightning.zepr.ScriptedInput;
+import com.geeselightning.zepr.Sprites;
+import com.geeselightning.zepr.StepProfile;
+import com.geeselightning.zepr.Zepr;
+
+/**
+ * Runs a level as fast as possible without a window, for profiling and soak testing the game logic.
+ * Arguments: level name (default town), number of steps (default 36000), "idle" to run with no player input
+ * or anything else for the scripted patrol, the random seed (default Constant.DEFAULTSEED) and a file to record
+ * the run to. The same arguments always give the same run, the state hash printed at the end shows whether two runs matched.
+ * The level name "stress" may be followed by the horde size, nonZombies per wave and spawns per tick, as in
+ * stress:5000:500:100, to find where each part of the step stops scaling. Recordings of the stress level are
+ * played back with its default sizes.
+ * Given a recording made by InputRecorder instead, plays it back and checks it against every keyframe.
+ * Must be run from the assets directory.
+ * #changed:   Added this class
+ */
+public class HeadlessLauncher extends ApplicationAdapter {
+
+	private final String levelName;
+	private final int steps;
+	private final boolean idle;
+	private final long seed;
+	private final String recordingPath; // file to record to or play back, null for neither
+
+	private HeadlessLauncher(String levelName, int steps, boolean idle, long seed, String recordingPath) {
+		this.levelName = levelName;
+		this.steps = steps;
+		this.idle = idle;
+		this.seed = seed;
+		this.recordingPath = recordingPath;
+	}
+
+	public static void main (String[] arg) {
+		HeadlessLauncher launcher;
+		if (arg.length > 0 && arg[0].endsWith(".zrec")) {
+			launcher = new HeadlessLauncher(null, 0, false, 0, arg[0]);
+		} else {
+			String levelName = arg.length > 0 ? arg[0] : "town";
+			int steps = arg.length > 1 ? Integer.parseInt(arg[1]) : 36000;
+			boolean idle = arg.length > 2 && arg[2].equalsIgnoreCase("idle");
+			long seed = arg.length > 3 ? Long.parseLong(arg[3]) : Constant.DEFAULTSEED;
+			launcher = new HeadlessLauncher(levelName, steps, idle, seed, arg.length > 4 ? arg[4] : null);
+		}
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		// The simulation is stepped from create(), the render loop is never needed
+		config.renderInterval = -1;
+		new HeadlessApplication(launcher, config);
+	}
+
+	@Override
+	public void create() {
+		// Textures are still created by the characters and map, so give them a GL that does nothing
+		Gdx.gl = Gdx.gl20 = noOpGL();
+
+		if (levelName == null) {
+			replay();
+			Gdx.app.exit();
+			return;
+		}
+
+		LevelConfig config = configFor(levelName);
+		if (config == null)
+			throw new IllegalArgumentException(levelName + " is not a level");
+
+		TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+		PlayerInput input = idle ? PlayerInput.IDLE : ScriptedInput.patrol();
+		InputRecorder recorder = null;
+		if (recordingPath != null) {
+			recorder = new InputRecorder(input, config.getLocation(), Constant.KEYFRAMEINTERVAL);
+			input = recorder;
+		}
+		LevelSimulation simulation = new LevelSimulation(config, map, input, seed);
+		simulation.setStateHashing(true);
+		if (recorder != null)
+			recorder.start(simulation);
+
+		int mostCharacters = 0;
+		int mostBodies = 0;
+		long start = System.nanoTime();
+		while (simulation.getTick() < steps && !simulation.isFinished()) {
+			simulation.update(Constant.TIMESTEP);
+			mostCharacters = Math.max(mostCharacters, simulation.getCharacters().size());
+			mostBodies = Math.max(mostBodies, simulation.getBodyCount());
+		}
+		long elapsed = System.nanoTime() - start;
+
+		double seconds = elapsed / 1e9;
+		System.out.println(levelName + ": " + simulation.getTick() + " steps in " + String.format("%.3f", seconds)
+				+ "s (" + String.format("%.0f", simulation.getTick() / seconds) + " steps/s), wave "
+				+ simulation.getCurrentWaveNumber() + ", " + simulation.getZombies().size() + " zombies, "
+				+ simulation.getHumans().size() + " humans"
+				+ (simulation.isFinished() ? ", level finished" : ""));
+		System.out.println("seed " + seed + ", final state hash " + String.format("%016x", simulation.getStateHash()));
+		System.out.println("worst spawn tick: " + simulation.getSpawnScheduler().getWorstTickSpawns() + " spawns in "
+				+ String.format("%.3f", simulation.getSpawnScheduler().getWorstTickCost() / 1e6) + "ms");
+		System.out.println("AI tiers on the last step: " + simulation.getAITierCount(AITier.NEAR) + " near, "
+				+ simulation.getAITierCount(AITier.MID) + " mid, " + simulation.getAITierCount(AITier.FAR) + " far");
+		System.out.println("bodies on the last step: " + simulation.getAwakeBodies() + " awake, "
+				+ simulation.getSleepingBodies() + " asleep, " + simulation.getDormantCharacters() + " characters dormant");
+		System.out.println("most at once: " + mostCharacters + " characters, " + mostBodies + " bodies");
+		System.out.println("textures: " + Sprites.getLiveTextures() + " live, "
+				+ Sprites.getLiveBytes() / 1024 + "KB");
+		StepProfile profile = simulation.getProfile();
+		for (StepProfile.Phase phase : StepProfile.Phase.values())
+			System.out.println(String.format("  %-14s %8.3fms mean %8.3fms worst", phase.label,
+					profile.getAverage(phase) / 1e6, profile.getWorst(phase) / 1e6));
+
+		if (recorder != null) {
+			try {
+				recorder.save(new File(recordingPath));
+				System.out.println("recorded to " + recordingPath + ", " + new File(recordingPath).length() + " bytes");
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		simulation.dispose();
+		map.dispose();
+		Gdx.app.exit();
+	}
+
+	/**
+	 * @param name a level name, or stress followed by any of :hordeSize:nonZombies:spawnsPerTick
+	 * @return the configuration of the level, or null if it is not a level
+	 */
+	private static LevelConfig configFor(String name) {
+		String[] parts = name.split(":");
+		Zepr.Location location = Zepr.Location.valueOf(parts[0].toUpperCase());
+		if (location != Zepr.Location.STRESS || parts.length == 1)
+			return LevelConfig.forLocation(location);
+
+		int hordeSize = Integer.parseInt(parts[1]);
+		int nonZombies = parts.length > 2 ? Integer.parseInt(parts[2]) : Constant.STRESSNONZOMBIES;
+		int spawnsPerTick = parts.length > 3 ? Integer.parseInt(parts[3]) : Constant.STRESSSPAWNSPERTICK;
+		return LevelConfig.stress(hordeSize, nonZombies, spawnsPerTick);
+	}
+
+	/**
+	 * Play back a recording as fast as possible, checking the simulation against every keyframe
+	 */
+	private void replay() {
+		InputReplay replay;
+		try {
+			replay = InputReplay.open(new File(recordingPath));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		LevelConfig config = LevelConfig.forLocation(replay.getLocation());
+		TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+		Player.setType(replay.getPlayerType());
+		LevelSimulation simulation = new LevelSimulation(config, map, replay, replay.getSeed());
+
+		long start = System.nanoTime();
+		boolean matched = replay.seek(simulation, replay.getKeyframeCount() - 1);
+		while (!replay.isFinished() && !simulation.isFinished())
+			simulation.update(Constant.TIMESTEP);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(recordingPath + ": " + replay.getLocation() + ", seed " + replay.getSeed() + ", "
+				+ simulation.getTick() + " of " + replay.getTicks() + " steps replayed in "
+				+ String.format("%.3f", elapsed / 1e9) + "s, " + replay.getKeyframeCount() + " keyframes "
+				+ (matched ? "all matched" : "did not match, the simulation has changed since it was recorded"));
+
+		simulation.dispose();
+		map.dispose();
+	}
+
+	/**
+	 * @return a GL20 where every call does nothing and returns zero, false or null
+	 */
+	private static GL20 noOpGL() {
+		return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] { GL20.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						Class<?> type = method.getReturnType();
+						if (type == int.class)
+							return 0;
+						if (type == boolean.class)
+							return false;
+						if (type == float.class)
+							return 0f;
+						return null;
+					}
+				});
+	}
+}
@@ -0,0 +1,55 @@
+package com.geeselightning.zepr.tests;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.math.Vector2;
+import com.geeselightning.zepr.Constant;
+import com.geeselightning.zepr.FlowField;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.*;
+
+@RunWith(GdxTestRunner.class)
+public class FlowFieldTest {
+
+    // The test map has a wall from the bottom of the map up to y = 784 between x = 224 and x = 320
+    private static final String MAP = "maps/pathfindingtest.tmx";
+
+    @Test
+    // Test 7.1
+    public void followingFieldLeadsAroundWall() {
+        TiledMap map = new TmxMapLoader().load(MAP);
+        FlowField field = new FlowField(map);
+        field.update(500, 100);
+
+        Vector2 position = new Vector2(100, 100);
+        Vector2 lookupPosition = new Vector2();
+        float highest = position.y;
+        int steps = 0;
+        Vector2 direction;
+        while ((direction = field.lookup(lookupPosition.set(position).scl(1 / Constant.PHYSICSDENSITY))) != null) {
+            assertFalse("The path should never get stuck.", direction.isZero());
+            assertTrue("The path should not pass through the wall.", position.x < 224 || position.x > 320 || position.y > 784);
+            position.mulAdd(direction, 8);
+            highest = Math.max(highest, position.y);
+            assertTrue("The path should reach the target in a reasonable number of steps.", ++steps < 1000);
+        }
+
+        assertEquals("Following the field should end in the target's tile.", 0, field.getDistance(position.x, position.y));
+        assertTrue("The path should go over the top of the wall.", highest > 784);
+        map.dispose();
+    }
+
+    @Test
+    // Test 7.2
+    public void fieldIsOnlySearchedWhenTargetChangesTile() {
+        TiledMap map = new TmxMapLoader().load(MAP);
+        FlowField field = new FlowField(map);
+
+        assertTrue("The first update should search the field.", field.update(100, 100));
+        assertFalse("Moving within a tile should not search again.", field.update(103, 105));
+        assertTrue("Moving to another tile should search again.", field.update(120, 100));
+        assertEquals("The field should have been searched twice.", 2, field.getSearches());
+        map.dispose();
+    }
+}
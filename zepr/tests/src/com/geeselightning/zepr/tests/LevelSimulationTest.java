@@ -0,0 +1,311 @@
+package com.geeselightning.zepr.tests;
+
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import com.geeselightning.zepr.AITier;
+import com.geeselightning.zepr.Constant;
+import com.geeselightning.zepr.Degradation;
+import com.geeselightning.zepr.InputRecorder;
+import com.geeselightning.zepr.InputReplay;
+import com.geeselightning.zepr.LevelConfig;
+import com.geeselightning.zepr.LevelSimulation;
+import com.geeselightning.zepr.Player;
+import com.geeselightning.zepr.PlayerInput;
+import com.geeselightning.zepr.ScriptedInput;
+import com.geeselightning.zepr.StepProfile;
+import com.geeselightning.zepr.Wave;
+import com.geeselightning.zepr.Zepr;
+import com.geeselightning.zepr.Zombie;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(GdxTestRunner.class)
+public class LevelSimulationTest {
+
+    @Test
+    // Test 6.1
+    public void firstWaveStartsOnFirstStep() {
+        LevelConfig config = LevelConfig.forLocation(Zepr.Location.TOWN);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, PlayerInput.IDLE);
+
+        simulation.update(Constant.TIMESTEP);
+
+        assertEquals("The simulation should be on the first wave after one step.", 1, simulation.getCurrentWaveNumber());
+        assertEquals("The first step should spawn as many zombies as the spawn budget allows.",
+                Math.min(5, Constant.SPAWNSPERTICK), simulation.getZombies().size());
+        assertEquals("Zombies still waiting to spawn should count towards the wave.", 5, simulation.getZombiesRemaining());
+        assertEquals("One step should have been counted.", 1, simulation.getTick());
+        simulation.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.2
+    public void scriptedInputMovesPlayer() {
+        LevelConfig config = LevelConfig.forLocation(Zepr.Location.TOWN);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, new ScriptedInput().hold(Keys.D, 0, 30));
+
+        float startX = simulation.getPlayer().getX();
+        for (int i = 0; i < 30; i++)
+            simulation.update(Constant.TIMESTEP);
+
+        assertTrue("Holding D should move the player right.", simulation.getPlayer().getX() > startX);
+        simulation.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.3
+    public void stepsDoNotAllocateDuringWave() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("The JVM must be able to measure allocation.", bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+
+        // One wave of zombies and no nonZombies, so nothing can die or change side while measuring
+        Player.setType(Player.PlayerType.NERDY);
+        LevelConfig config = LevelConfig.forLocation(Zepr.Location.TOWN);
+        config.getWaves()[0] = new Wave(50, Zombie.Type.ZOMBIE1);
+        config.getNonZombieWaves()[0] = new Wave(0, Zombie.Type.NONZOMBIE1);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, PlayerInput.IDLE);
+        simulation.getPlayer().setImmune(true);
+
+        // Spawn the wave and let everything reach its working size
+        for (int i = 0; i < 100; i++)
+            simulation.update(Constant.TIMESTEP);
+        // Keep any power up out of reach so picking it up can't change the wave
+        if (simulation.getCurrentPowerUp() != null)
+            simulation.getCurrentPowerUp().setPosition(-10000, -10000);
+
+        // The JVM allocates a few bytes on this thread while it compiles the calls Box2D makes back into Java,
+        // at whatever point they become hot. So steps are measured in windows until one is clear of that,
+        // while an allocation made by the steps themselves would show in every window.
+        long overhead = -threads.getThreadAllocatedBytes(thread) + threads.getThreadAllocatedBytes(thread);
+        long allocated = -1;
+        for (int window = 0; window < 10 && allocated != 0; window++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 500; i++)
+                simulation.update(Constant.TIMESTEP);
+            allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+        }
+
+        assertEquals("The whole wave should still be alive.", 50, simulation.getZombies().size());
+        assertEquals("Simulation steps should not allocate while a wave is in progress.", 0, allocated);
+        simulation.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.4
+    public void waveSpawnIsSpreadOverTicks() {
+        Player.setType(Player.PlayerType.NERDY);
+        LevelConfig config = LevelConfig.forLocation(Zepr.Location.TOWN);
+        config.getWaves()[0] = new Wave(Constant.SPAWNSPERTICK * 3, Zombie.Type.ZOMBIE1);
+        config.getNonZombieWaves()[0] = new Wave(2, Zombie.Type.NONZOMBIE1);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, PlayerInput.IDLE);
+        simulation.getPlayer().setImmune(true);
+
+        for (int tick = 1; tick <= 3; tick++) {
+            simulation.update(Constant.TIMESTEP);
+            assertEquals("Each tick should spawn no more than the spawn budget.",
+                    Constant.SPAWNSPERTICK * tick, simulation.getZombies().size());
+            assertEquals("Pending spawns should keep the wave from ending.", 1, simulation.getCurrentWaveNumber());
+            assertEquals("Queued zombies should count as remaining.", Constant.SPAWNSPERTICK * 3,
+                    simulation.getZombiesRemaining());
+            assertEquals("Queued nonZombies should count as survivors.", 2, simulation.getSurvivors());
+        }
+
+        simulation.update(Constant.TIMESTEP);
+        assertEquals("The nonZombies should spawn once the zombies have.", 2, simulation.getHumans().size());
+        assertTrue("The worst spawning tick should be recorded.", simulation.getSpawnScheduler().getWorstTickCost() > 0);
+        simulation.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.5
+    public void charactersOffScreenAndFarAwayUseFarTier() {
+        LevelConfig config = LevelConfig.forLocation(Zepr.Location.TOWN);
+        config.setAITierDistances(0, 0);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, PlayerInput.IDLE);
+
+        for (int i = 0; i < 10; i++)
+            simulation.update(Constant.TIMESTEP);
+        int characters = simulation.getCharacters().size();
+        assertEquals("Characters beyond the far distance with no view set should all be far.",
+                characters, simulation.getAITierCount(AITier.FAR));
+
+        simulation.setView(-10000, -10000, 20000, 20000);
+        simulation.update(Constant.TIMESTEP);
+        assertEquals("Characters in view should always be near.",
+                simulation.getCharacters().size(), simulation.getAITierCount(AITier.NEAR));
+        simulation.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.6
+    public void charactersWithNothingToChaseSleepUntilWoken() {
+        Player.setType(Player.PlayerType.NERDY);
+        LevelConfig config = LevelConfig.forLocation(Zepr.Location.TOWN);
+        config.getNonZombieWaves()[0] = new Wave(0, Zombie.Type.NONZOMBIE1);
+        config.setAITierDistances(0, 0);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, PlayerInput.IDLE);
+
+        // With the player invisible the zombies have nothing to chase
+        simulation.getPlayer().setVisible(false);
+        for (int i = 0; i < 120; i++)
+            simulation.update(Constant.TIMESTEP);
+        int zombies = simulation.getZombies().size();
+        assertEquals("Off screen zombies with nothing to chase should be dormant.", zombies, simulation.getDormantCharacters());
+        assertEquals("Dormant zombies should have sleeping bodies.", zombies, simulation.getSleepingBodies());
+
+        simulation.getPlayer().setVisible(true);
+        for (int i = 0; i < Constant.AIFARINTERVAL + 2; i++)
+            simulation.update(Constant.TIMESTEP);
+        assertEquals("Zombies should wake once they can see the player.", 0, simulation.getDormantCharacters());
+        assertEquals("Woken zombies should have awake bodies.", zombies, simulation.getAwakeBodies());
+        simulation.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.7
+    public void sameSeedAndInputGiveSameRun() {
+        Player.setType(Player.PlayerType.NERDY);
+        long[] first = hashRun(1, 600);
+        long[] second = hashRun(1, 600);
+        long[] otherSeed = hashRun(2, 600);
+
+        assertArrayEquals("Runs with the same seed and input should hash the same every step.", first, second);
+        assertFalse("Runs with different seeds should diverge.", java.util.Arrays.equals(first, otherSeed));
+    }
+
+    @Test
+    // Test 6.8
+    public void replayMatchesRecordingAndSeeksToKeyframes() throws IOException {
+        Player.setType(Player.PlayerType.NERDY);
+        LevelConfig config = LevelConfig.forLocation(Zepr.Location.TOWN);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        InputRecorder recorder = new InputRecorder(ScriptedInput.patrol().aimAt(412.3f, 287.9f),
+                Zepr.Location.TOWN, 100);
+        LevelSimulation recorded = new LevelSimulation(config, map, recorder, 7);
+        recorder.start(recorded);
+        for (int i = 0; i < 450; i++)
+            recorded.update(Constant.TIMESTEP);
+        File file = File.createTempFile("zepr", ".zrec");
+        file.deleteOnExit();
+        recorder.save(file);
+
+        InputReplay replay = InputReplay.open(file);
+        assertEquals("The replay should have the seed of the recording.", 7, replay.getSeed());
+        assertEquals("The replay should have the player type of the recording.", Player.PlayerType.NERDY, replay.getPlayerType());
+        assertEquals("Every step should have been recorded.", 450, replay.getTicks());
+        assertEquals("There should be a keyframe every 100 steps starting from the first.", 5, replay.getKeyframeCount());
+
+        LevelSimulation replayed = new LevelSimulation(config, map, replay, replay.getSeed());
+        assertTrue("Seeking should match the recording at every keyframe.", replay.seek(replayed, 3));
+        assertEquals("Seeking should stop at the keyframe's step.", 300, replayed.getTick());
+        while (!replay.isFinished())
+            replayed.update(Constant.TIMESTEP);
+        assertEquals("Playing the rest of the replay should end in the recorded state.",
+                recorded.getStateHash(), replayed.getStateHash());
+        replayed.dispose();
+
+        // Seeking backwards needs a new simulation
+        LevelSimulation restarted = new LevelSimulation(config, map, replay, replay.getSeed());
+        assertTrue("Seeking again from the start should match the recording.", replay.seek(restarted, 1));
+        assertEquals("Seeking should stop at the keyframe's step.", 100, restarted.getTick());
+        restarted.dispose();
+        recorded.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.9
+    public void stressLevelSpawnsItsHordeAtItsSpawnRate() {
+        LevelConfig config = LevelConfig.stress(200, 20, 50);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, PlayerInput.IDLE);
+
+        simulation.update(Constant.TIMESTEP);
+        assertEquals("The first step should spawn the stress level's spawns per tick.", 50, simulation.getCharacters().size());
+        for (int i = 0; i < 4; i++)
+            simulation.update(Constant.TIMESTEP);
+        assertEquals("The whole first wave should have spawned after five steps.", 220, simulation.getCharacters().size());
+        assertEquals("Every zombie of the wave should be remaining.", 200, simulation.getZombiesRemaining());
+        assertEquals("Every step should have been timed.", 5, simulation.getProfile().getSteps());
+        assertTrue("The whole step should take at least as long as the AI.",
+                simulation.getProfile().getWorst(StepProfile.Phase.STEP) >= simulation.getProfile().getWorst(StepProfile.Phase.AI));
+        simulation.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.10
+    public void spatialIndexesHoldCharactersSpawnedThisStep() {
+        LevelConfig config = LevelConfig.stress(200, 20, 50);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, PlayerInput.IDLE);
+        Array<Zombie> found = new Array<>();
+
+        for (int i = 0; i < 3; i++) {
+            simulation.update(Constant.TIMESTEP);
+            found.clear();
+            simulation.queryCharacters(-1e6f, -1e6f, 1e6f, 1e6f, found);
+            assertEquals("Every character, including those spawned this step, should be found for drawing.",
+                    simulation.getCharacters().size(), found.size);
+        }
+        simulation.dispose();
+        map.dispose();
+    }
+
+    @Test
+    // Test 6.11
+    public void cuttingSpawnRateSpawnsFewerEachTick() {
+        LevelConfig config = LevelConfig.stress(200, 20, 50);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, PlayerInput.IDLE);
+
+        simulation.setQuality(Degradation.SPAWNRATE.ordinal() + 1);
+        simulation.update(Constant.TIMESTEP);
+        assertEquals("A cut spawn rate should spawn fewer characters each tick.",
+                50 / Constant.DEGRADEDSPAWNDIVISOR, simulation.getCharacters().size());
+        simulation.setQuality(0);
+        simulation.update(Constant.TIMESTEP);
+        assertEquals("Restoring the spawn rate should spawn the full amount again.",
+                50 / Constant.DEGRADEDSPAWNDIVISOR + 50, simulation.getCharacters().size());
+        simulation.dispose();
+        map.dispose();
+    }
+
+    private long[] hashRun(long seed, int steps) {
+        LevelConfig config = LevelConfig.forLocation(Zepr.Location.TOWN);
+        TiledMap map = new TmxMapLoader().load(config.getMapLocation());
+        LevelSimulation simulation = new LevelSimulation(config, map, ScriptedInput.patrol(), seed);
+        simulation.setStateHashing(true);
+
+        long[] hashes = new long[steps];
+        for (int i = 0; i < steps; i++) {
+            simulation.update(Constant.TIMESTEP);
+            hashes[i] = simulation.getStateHash();
+        }
+        simulation.dispose();
+        map.dispose();
+        return hashes;
+    }
+}
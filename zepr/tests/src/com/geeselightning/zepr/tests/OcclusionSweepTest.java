@@ -0,0 +1,53 @@
+package com.geeselightning.zepr.tests;
+
+import com.geeselightning.zepr.OcclusionSweep;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+@RunWith(GdxTestRunner.class)
+public class OcclusionSweepTest {
+
+    @Test
+    // Test 8.1
+    public void frontSpriteHidesTheOneBehind() {
+        OcclusionSweep sweep = new OcclusionSweep();
+        sweep.add(100, 200);
+        sweep.add(150, 300);
+        sweep.sweep();
+
+        assertEquals("The uncovered part of the back sprite should be picked.", 0, sweep.pick(120));
+        assertEquals("The front sprite should be picked where they overlap.", 1, sweep.pick(180));
+        assertEquals("Nothing should be picked outside every sprite.", -1, sweep.pick(50));
+        assertEquals("Only the uncovered part of the back sprite should be seen.", 50, sweep.getVisibleWidth(0), 0.001f);
+        assertEquals("The whole of the front sprite should be seen.", 150, sweep.getVisibleWidth(1), 0.001f);
+    }
+
+    @Test
+    // Test 8.2
+    public void pickMatchesFrontToBackScan() {
+        Random random = new Random(3);
+        OcclusionSweep sweep = new OcclusionSweep();
+        float[] lefts = new float[100];
+        float[] rights = new float[100];
+        for (int i = 0; i < lefts.length; i++) {
+            lefts[i] = random.nextFloat() * 1200 - 100;
+            rights[i] = lefts[i] + random.nextFloat() * 200;
+            sweep.add(lefts[i], rights[i]);
+        }
+        sweep.sweep();
+
+        for (int query = 0; query < 1000; query++) {
+            float x = random.nextFloat() * 1600 - 200;
+            int expected = -1;
+            for (int i = lefts.length - 1; i >= 0; i--) {
+                if (x >= lefts[i] && x < rights[i]) {
+                    expected = i;
+                    break;
+                }
+            }
+            assertEquals("The sweep should pick the frontmost sprite covering the point.", expected, sweep.pick(x));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.geeselightning.zepr.tests;
+
+import com.badlogic.gdx.utils.Array;
+import com.geeselightning.zepr.SpatialHashGrid;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+@RunWith(GdxTestRunner.class)
+public class SpatialHashGridTest {
+
+    @Test
+    // Test 5.1
+    public void emptyGridHasNoNearestItem() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(64, 8);
+        assertNull("An empty grid should not return a nearest item.", grid.nearest(0, 0));
+    }
+
+    @Test
+    // Test 5.2
+    public void nearestMatchesLinearScan() {
+        Random random = new Random(7);
+        SpatialHashGrid<Integer> grid = new SpatialHashGrid<>(64, 8);
+        float[] xs = new float[200];
+        float[] ys = new float[200];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextFloat() * 2000 - 500;
+            ys[i] = random.nextFloat() * 2000 - 500;
+            grid.insert(i, xs[i], ys[i]);
+        }
+
+        for (int query = 0; query < 100; query++) {
+            float x = random.nextFloat() * 3000 - 1000;
+            float y = random.nextFloat() * 3000 - 1000;
+            int expected = -1;
+            float expectedDistance = Float.MAX_VALUE;
+            for (int i = 0; i < xs.length; i++) {
+                float distance = (xs[i] - x) * (xs[i] - x) + (ys[i] - y) * (ys[i] - y);
+                if (distance < expectedDistance) {
+                    expectedDistance = distance;
+                    expected = i;
+                }
+            }
+            assertEquals("Grid should find the same closest item as a linear scan.",
+                    expected, (int) grid.nearest(x, y));
+        }
+    }
+
+    @Test
+    // Test 5.3
+    public void removedItemIsNotReturned() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(64, 8);
+        grid.insert("near", 10, 10);
+        grid.insert("far", 500, 500);
+        assertTrue("Removing an inserted item should succeed.", grid.remove("near", 10, 10));
+        assertEquals("Removed items should not be found.", "far", grid.nearest(0, 0));
+        assertEquals("Grid size should drop after a removal.", 1, grid.size());
+    }
+
+    @Test
+    // Test 5.4
+    public void queryOnlyReturnsItemsInsideRectangle() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(64, 8);
+        grid.insert("inside", 100, 100);
+        grid.insert("edge", 200, 200);
+        grid.insert("outside", 201, 100);
+        Array<String> found = new Array<>();
+        grid.query(0, 0, 200, 200, found);
+        assertEquals("Query should return items inside and on the edge of the rectangle.", 2, found.size);
+        assertFalse("Query should not return items outside the rectangle.", found.contains("outside", false));
+    }
+
+    @Test
+    // Test 5.5
+    public void clearEmptiesGrid() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(64, 1);
+        for (int i = 0; i < 20; i++)
+            grid.insert("item" + i, i * 30, i * 30);
+        grid.clear();
+        assertEquals("Cleared grid should be empty.", 0, grid.size());
+        assertNull("Cleared grid should not return a nearest item.", grid.nearest(0, 0));
+    }
+
+    @Test
+    // Test 5.6
+    public void removedItemsStayRemovedWhenGridGrows() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(64, 4);
+        grid.insert("removed", 10, 10);
+        grid.insert("kept", 20, 20);
+        grid.remove("removed", 10, 10);
+        // Past the initial capacity, so the entries are rehashed into a larger table
+        for (int i = 0; i < 200; i++)
+            grid.insert("item" + i, 1000 + i * 30, 1000 + i * 30);
+        assertEquals("Items inserted before the grid grew should still be found.", "kept", grid.nearest(0, 0));
+        Array<String> found = new Array<>();
+        grid.query(0, 0, 50, 50, found);
+        assertEquals("Items removed before the grid grew should stay removed.", 1, found.size);
+        assertEquals("Grid size should count every item still in it.", 201, grid.size());
+    }
+}
@@ -9,7 +9,11 @@ import org.junit.runners.Suite;
         CharacterTest.class,
         PlayerTest.class,
         ZombieTest.class,
-        PowerUpTest.class
+        PowerUpTest.class,
+        SpatialHashGridTest.class,
+        LevelSimulationTest.class,
+        FlowFieldTest.class,
+        OcclusionSweepTest.class
 })
 
 public class TestSuite {
@@ -5,7 +5,9 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
 import com.geeselightning.zepr.Constant;
 import com.geeselightning.zepr.Player;
+import com.geeselightning.zepr.Sprites;
 import com.geeselightning.zepr.Zombie;
+import com.geeselightning.zepr.ZombiePool;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import static org.junit.Assert.*;
@@ -163,4 +165,49 @@ public class ZombieTest {
         zombie3.dispose();
         world.dispose();
     }
+
+    @Test
+    // Test 3.9
+    public void pooledZombieIsReusedWithNewTypeAndFullHealth() {
+        World world = new World(new Vector2(0, 0), true);
+        ZombiePool pool = new ZombiePool(world);
+
+        Zombie zombie = pool.obtain(Constant.ORIGIN, Zombie.Type.ZOMBIE2);
+        zombie.takeDamage(zombie.getHealth());
+        pool.free(zombie);
+        Zombie respawned = pool.obtain(new Vector2(100, 100), Zombie.Type.ZOMBIE1);
+        Zombie fresh = new Zombie(Constant.ORIGIN, world, Zombie.Type.ZOMBIE1);
+
+        assertSame("A freed zombie should be reused for the next spawn.", zombie, respawned);
+        assertEquals("A reused zombie should have the health of its new type.", fresh.getHealth(), respawned.getHealth());
+        assertEquals("A reused zombie should have the speed of its new type.", fresh.getSpeed(), respawned.getSpeed(), 0.0001);
+        assertEquals("The second spawn should be a pool hit.", 1, pool.getHits());
+        assertEquals("The first spawn should be a pool miss.", 1, pool.getMisses());
+        assertEquals("Only one zombie was in use at a time.", 1, pool.getHighWaterMark());
+
+        respawned.dispose();
+        fresh.dispose();
+        pool.dispose();
+        world.dispose();
+    }
+
+    @Test
+    // Test 3.10
+    public void changingTypeBackReleasesTheImagesItAcquired() {
+        World world = new World(new Vector2(0, 0), true);
+        int texturesBefore = Sprites.getLiveTextures();
+
+        Zombie zombie = new Zombie(Constant.ORIGIN, world, Zombie.Type.ZOMBIE1);
+        int texturesHeld = Sprites.getLiveTextures();
+        long bytesHeld = Sprites.getLiveBytes();
+        zombie.switchType();
+        zombie.switchType();
+
+        assertEquals("Changing type and back should leave the same textures loaded.", texturesHeld, Sprites.getLiveTextures());
+        assertEquals("Changing type and back should leave the same texture memory in use.", bytesHeld, Sprites.getLiveBytes());
+
+        zombie.dispose();
+        assertEquals("Disposing the zombie should release its images.", texturesBefore, Sprites.getLiveTextures());
+        world.dispose();
+    }
 }